@@ -0,0 +1,76 @@
+package day;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Builds benchmark inputs of a requested size out of the checked-in puzzle inputs.
+ * Lines are repeated until the requested count is reached, so every size has the same shape as real input.
+ */
+public final class BenchmarkInput {
+
+    /** Directory holding the day packages and their input files. Override with -Daoc.src=... */
+    public static final String SOURCE_DIRECTORY = System.getProperty("aoc.src", System.getProperty("user.dir") + "/src");
+
+    private BenchmarkInput() {
+    }
+
+    /**
+     * @param day the day's package name, i.e. 'one'
+     * @return path to that day's puzzle input
+     */
+    public static Path inputFile(String day) {
+        return Path.of(SOURCE_DIRECTORY, "day", day, AdventOfCodeSolution.FILENAME);
+    }
+
+    /**
+     * Read a day's input and repeat it until it is the requested number of lines long.
+     * Repeated lines share the same String instance, so large sizes stay cheap to hold.
+     * @param day the day's package name, i.e. 'one'
+     * @param count number of lines wanted
+     * @return the repeated input
+     */
+    public static String[] lines(String day, int count) {
+        String[] source = sourceLines(day);
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = source[i % source.length];
+        }
+        return lines;
+    }
+
+    /**
+     * @param day the day's package name, i.e. 'one'
+     * @return the lines of that day's puzzle input, exactly as checked in
+     */
+    public static String[] sourceLines(String day) {
+        return readLines(inputFile(day)).toArray(new String[0]);
+    }
+
+    /**
+     * Write a repeated copy of a day's input to a temporary file.
+     * @param day the day's package name, i.e. 'one'
+     * @param count number of lines wanted
+     * @return path to the temporary file. It is deleted when the JVM exits.
+     */
+    public static Path writeTempFile(String day, int count) {
+        try {
+            Path file = Files.createTempFile("aoc-" + day + "-" + count + "-", ".txt");
+            file.toFile().deleteOnExit();
+            Files.write(file, List.of(lines(day, count)));
+            return file;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write benchmark input for day " + day, e);
+        }
+    }
+
+    private static List<String> readLines(Path file) {
+        try {
+            return Files.readAllLines(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read benchmark input " + file + ". Run from the java directory or set -Daoc.src", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package day;
+
+import day.one.Trebuchet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading an input file through {@link AdventOfCodeSolution#getInput(String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InputBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int lines;
+
+    private AdventOfCodeSolution<?> solution;
+    private String path;
+
+    @Setup
+    public void setup() {
+        path = BenchmarkInput.writeTempFile("one", lines).toString();
+        solution = new Trebuchet("one");
+    }
+
+    @Benchmark
+    public Object getInput(LineCounter counter) {
+        counter.lines += lines;
+        return solution.getInput(path);
+    }
+}
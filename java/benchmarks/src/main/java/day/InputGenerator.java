@@ -0,0 +1,113 @@
+package day;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a synthetic puzzle input of any size for one day. The same seed always gives the same input.
+ * Inputs are built so that their answers are known while they are written, so a solver's output can be checked
+ * at sizes far beyond anything the real inputs reach.
+ */
+public interface InputGenerator {
+
+    /**
+     * @return the day's package name, i.e. 'one'
+     */
+    String day();
+
+    /**
+     * Write lines until at least the requested number of bytes has been written
+     * @param out where to write the input
+     * @param targetBytes roughly how large the input should be. It is never smaller, and overshoots by under a line.
+     * @param random source of every random choice
+     * @return the answers to both parts for the input written
+     * @throws IOException if the input cannot be written
+     */
+    Answers generate(LineOutput out, long targetBytes, SplittableRandom random) throws IOException;
+
+    /**
+     * Write an input to a file
+     * @param file the file to write, replacing it if it exists
+     * @param targetBytes roughly how large the input should be
+     * @param seed the seed for every random choice
+     * @return the answers to both parts for the input written
+     * @throws IOException if the input cannot be written
+     */
+    default Answers generate(Path file, long targetBytes, long seed) throws IOException {
+        try (LineOutput out = new LineOutput(Files.newOutputStream(file))) {
+            return generate(out, targetBytes, new SplittableRandom(seed));
+        }
+    }
+
+    /**
+     * The expected answers to an input
+     */
+    final class Answers {
+        public final long partOne, partTwo;
+
+        public Answers(long partOne, long partTwo) {
+            this.partOne = partOne;
+            this.partTwo = partTwo;
+        }
+
+        @Override
+        public String toString() {
+            return partOne + " / " + partTwo;
+        }
+    }
+
+    /**
+     * A buffered stream of Latin-1 lines that counts what has been written. Lines are separated by '\n',
+     * with none after the last line, like the checked-in inputs.
+     */
+    final class LineOutput implements AutoCloseable {
+        private final OutputStream out;
+        private final StringBuilder line = new StringBuilder();
+        private long written = 0;
+        private long lines = 0;
+
+        public LineOutput(OutputStream out) {
+            this.out = new BufferedOutputStream(out, 1 << 16);
+        }
+
+        /**
+         * @return the line being built, emptied each time it is written
+         */
+        public StringBuilder line() {
+            return line;
+        }
+
+        /**
+         * Write the line that has been built and start a new one
+         */
+        public void endLine() throws IOException {
+            if (lines > 0) {
+                out.write('\n');
+                written++;
+            }
+            byte[] bytes = line.toString().getBytes(StandardCharsets.ISO_8859_1);
+            out.write(bytes);
+            written += bytes.length;
+            lines++;
+            line.setLength(0);
+        }
+
+        public long written() {
+            return written;
+        }
+
+        public long lines() {
+            return lines;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
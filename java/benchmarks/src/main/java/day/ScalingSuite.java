@@ -0,0 +1,155 @@
+package day;
+
+import day.five.AlmanacGenerator;
+import day.four.ScratchcardsGenerator;
+import day.one.TrebuchetGenerator;
+import day.three.SchematicGenerator;
+import day.two.CubesGenerator;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs every solution over generated inputs of growing size and records how time and memory grow, as CSV with one row
+ * per day and size. Each answer is checked against the one the generator worked out, so a wrong answer at scale is
+ * caught as well as a slow one.
+ * Usage: ScalingSuite [--max 1G] [--days one,two] [--seed 1] [--dir directory] [--out results.csv]
+ * Sizes go up by ten times from 1K to --max, which defaults to 100M. Larger sizes need a larger -Xmx, or
+ * -Daoc.mapped=true to solve from a mapped input where the solution can.
+ */
+public class ScalingSuite {
+
+    static final InputGenerator[] GENERATORS = {new TrebuchetGenerator(), new CubesGenerator(), new SchematicGenerator(),
+            new ScratchcardsGenerator(), new AlmanacGenerator()};
+    static final String HEADER = "day,solution,bytes,lines,load_parse_ms,part_one_ms,part_two_ms,peak_heap_mb,"
+            + "expected_one,actual_one,expected_two,actual_two,correct,error";
+
+    public static void main(String[] args) throws Exception {
+        long max = 100_000_000L;
+        long seed = 1;
+        List<String> days = null;
+        Path dir = null;
+        Path csv = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--max": max = parseSize(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                case "--days": days = Arrays.asList(args[i + 1].split(",")); break;
+                case "--dir": dir = Path.of(args[i + 1]); break;
+                case "--out": csv = Path.of(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        // every size is a new input, so caching parsed models would only fill the disk
+        if (System.getProperty("aoc.cache") == null) {
+            System.setProperty("aoc.cache", "false");
+        }
+        if (dir == null) {
+            dir = Files.createTempDirectory("aoc-scaling");
+        }
+
+        List<String> rows = new ArrayList<>();
+        rows.add(HEADER);
+        System.out.println(HEADER);
+        for (InputGenerator generator : GENERATORS) {
+            if (days != null && !days.contains(generator.day())) {
+                continue;
+            }
+            Class<? extends AdventOfCodeSolution<?>> solution = solutionFor(generator.day());
+            for (long size = 1000; size <= max; size *= 10) {
+                String row = run(generator, solution, dir.resolve(generator.day() + "-" + size + ".txt"), size, seed);
+                rows.add(row);
+                System.out.println(row);
+            }
+        }
+        if (csv != null) {
+            Files.write(csv, rows);
+        }
+    }
+
+    /**
+     * Generate one input, solve it and measure how that went
+     * @return a CSV row
+     */
+    static String run(InputGenerator generator, Class<? extends AdventOfCodeSolution<?>> solutionClass, Path file, long size, long seed) throws IOException {
+        InputGenerator.Answers expected = generator.generate(file, size, seed);
+        long bytes = Files.size(file);
+        String lines = "", loadParse = "", partOne = "", partTwo = "", peak = "", actualOne = "", actualTwo = "", error = "";
+        try {
+            AdventOfCodeSolution<?> solution = solutionClass.getConstructor(String.class).newInstance(generator.day());
+            solution.setInputPath(file);
+            System.gc();
+            List<MemoryPoolMXBean> heap = heapPools();
+            heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+            // mapped inputs are solved straight from the mapping, without building a model
+            boolean mapped = solution.isMapped();
+            long start = System.nanoTime();
+            if (mapped) {
+                solution.mapped();
+            } else {
+                solution.model();
+            }
+            long parsed = System.nanoTime();
+            actualOne = String.valueOf(solution.runPart(1));
+            long solvedOne = System.nanoTime();
+            actualTwo = String.valueOf(solution.runPart(2));
+            long solvedTwo = System.nanoTime();
+
+            lines = mapped || solution.arena() == null ? "" : String.valueOf(solution.arena().lineCount());
+            loadParse = millis(parsed - start);
+            partOne = millis(solvedOne - parsed);
+            partTwo = millis(solvedTwo - solvedOne);
+            peak = String.format(Locale.ROOT, "%.1f", heap.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum() / 1e6);
+        } catch (Throwable e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        boolean correct = actualOne.equals(String.valueOf(expected.partOne)) && actualTwo.equals(String.valueOf(expected.partTwo));
+        return String.join(",", generator.day(), solutionClass.getSimpleName(), String.valueOf(bytes), lines, loadParse,
+                partOne, partTwo, peak, String.valueOf(expected.partOne), actualOne, String.valueOf(expected.partTwo),
+                actualTwo, String.valueOf(correct), error.replace(',', ';'));
+    }
+
+    static Class<? extends AdventOfCodeSolution<?>> solutionFor(String day) throws IOException {
+        for (Class<? extends AdventOfCodeSolution<?>> solution : AdventOfCodeRunner.findSolutions()) {
+            if (AdventOfCodeRunner.dayOf(solution).equals(day)) {
+                return solution;
+            }
+        }
+        throw new IllegalArgumentException("No solution on the classpath for day " + day);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    /**
+     * @param size a number of bytes, optionally ending in K, M or G
+     */
+    static long parseSize(String size) {
+        String upper = size.toUpperCase(Locale.ROOT);
+        char unit = upper.charAt(upper.length() - 1);
+        long multiplier = unit == 'K' ? 1_000L : unit == 'M' ? 1_000_000L : unit == 'G' ? 1_000_000_000L : 1;
+        return Long.parseLong(multiplier == 1 ? upper : upper.substring(0, upper.length() - 1)) * multiplier;
+    }
+}
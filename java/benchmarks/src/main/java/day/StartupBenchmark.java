@@ -0,0 +1,90 @@
+package day;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a fresh JVM takes to print the first answer of each solution, with and without the class data
+ * sharing archive built by 'mvn -Pcds package'. Each sample launches a new process, so this is wall time including
+ * JVM startup, class loading, reading the input and solving part one. Both are run without JMX, as the 'aoc' launcher
+ * does, so the difference between them is the archive alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+
+    /** The solutions jar. Override with -Daoc.jar=... */
+    static final Path JAR = Path.of(System.getProperty("aoc.jar", "solutions/target/advent-of-code-1.0-SNAPSHOT.jar")).toAbsolutePath();
+    /** The archive built alongside it. Override with -Daoc.archive=... */
+    static final Path ARCHIVE = Path.of(System.getProperty("aoc.archive", "solutions/target/aoc.jsa")).toAbsolutePath();
+    static final String FIRST_ANSWER = "Final total ( part 1 )";
+
+    @Param({"day.one.Trebuchet", "day.two.Cubes", "day.three.GearRatios", "day.four.Scratchcards", "day.five.Fertilizer"})
+    public String solution;
+
+    @Param({"none", "cds"})
+    public String archive;
+
+    private List<String> command;
+
+    @Setup
+    public void setup() {
+        if (!Files.isRegularFile(JAR)) {
+            throw new IllegalStateException("No solutions jar at " + JAR + ", run 'mvn package' first");
+        }
+        command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (archive.equals("cds")) {
+            if (!Files.isRegularFile(ARCHIVE)) {
+                throw new IllegalStateException("No archive at " + ARCHIVE + ", run 'mvn -Pcds package' first");
+            }
+            command.add("-XX:SharedArchiveFile=" + ARCHIVE);
+            // fail rather than quietly run without the archive if it doesn't match the jar
+            command.add("-Xshare:on");
+        }
+        command.add("-Daoc.jmx=false");
+        command.add("-cp");
+        command.add(JAR.toString());
+        command.add(solution);
+    }
+
+    @Benchmark
+    public String timeToFirstAnswer() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.ISO_8859_1))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith(FIRST_ANSWER)) {
+                    return line;
+                }
+            }
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+        throw new IllegalStateException(solution + " exited without printing an answer");
+    }
+}
@@ -0,0 +1,201 @@
+package day.five;
+
+import day.InputGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates almanacs of seven maps. Each map cuts the numbers from 0 up to a limit into segments and moves every
+ * segment somewhere else in that range, so it is a one to one mapping with no gaps, like the real ones. The input
+ * grows by adding rows to every map, and any shortfall from the target size is made up by splitting segments of the
+ * last map in two. The answers are worked out alongside by pushing the seed ranges through the maps
+ * one segment at a time, which is independent of how {@link Fertilizer} composes the maps.
+ */
+public class AlmanacGenerator implements InputGenerator {
+
+    static final String[] MAPS = {"seed-to-soil", "soil-to-fertilizer", "fertilizer-to-water", "water-to-light",
+            "light-to-temperature", "temperature-to-humidity", "humidity-to-location"};
+    /** Roughly where the numbers in the real almanacs end */
+    static final long LIMIT = 4_000_000_000L;
+    /** Roughly how many bytes a row of a map takes */
+    static final int ROW_BYTES = 32;
+
+    private final int seedPairs;
+
+    public AlmanacGenerator() {
+        this(10);
+    }
+
+    public AlmanacGenerator(int seedPairs) {
+        this.seedPairs = seedPairs;
+    }
+
+    @Override
+    public String day() {
+        return "five";
+    }
+
+    @Override
+    public Answers generate(LineOutput out, long targetBytes, SplittableRandom random) throws IOException {
+        int rows = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, targetBytes / ROW_BYTES / MAPS.length));
+        long step = Math.max(2, LIMIT / rows);
+        long limit = step * rows;
+
+        long[] seeds = new long[seedPairs * 2];
+        StringBuilder line = out.line().append("seeds:");
+        for (int pair = 0; pair < seedPairs; pair++) {
+            seeds[2 * pair] = random.nextLong(limit);
+            seeds[2 * pair + 1] = random.nextLong(1, Math.max(2, (limit - seeds[2 * pair]) / seedPairs));
+            line.append(' ').append(seeds[2 * pair]).append(' ').append(seeds[2 * pair + 1]);
+        }
+        out.endLine();
+
+        long partOne = Long.MAX_VALUE;
+        long[] locations = seeds.clone();
+        List<long[]> ranges = new ArrayList<>();
+        for (int pair = 0; pair < seedPairs; pair++) {
+            ranges.add(new long[]{seeds[2 * pair], seeds[2 * pair] + seeds[2 * pair + 1]});
+        }
+
+        for (int map = 0; map < MAPS.length; map++) {
+            long[] sources = new long[rows + 1];
+            for (int i = 1; i < rows; i++) {
+                sources[i] = i * step + random.nextLong(step / 2);
+            }
+            sources[rows] = limit;
+            // where each segment goes: segments are laid out again in a shuffled order
+            int[] order = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                order[i] = i;
+            }
+            for (int i = rows - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            long[] destinations = new long[rows];
+            long next = 0;
+            for (int segment : order) {
+                destinations[segment] = next;
+                next += sources[segment + 1] - sources[segment];
+            }
+
+            MapLines lines = new MapLines(rows);
+            for (int segment : order) {
+                lines.add(destinations[segment], sources[segment], sources[segment + 1] - sources[segment]);
+            }
+            if (map == MAPS.length - 1) {
+                // rows are only roughly ROW_BYTES long, so make up any shortfall in the last map
+                long header = 2 + MAPS[map].length() + " map:".length();
+                lines.splitUntil(targetBytes - out.written() - header, random);
+            }
+
+            out.line();
+            out.endLine();
+            out.line().append(MAPS[map]).append(" map:");
+            out.endLine();
+            for (int i = 0; i < lines.count; i++) {
+                out.line().append(lines.destinations[i]).append(' ').append(lines.sources[i]).append(' ')
+                        .append(lines.lengths[i]);
+                out.endLine();
+            }
+
+            for (int i = 0; i < locations.length; i++) {
+                int segment = segment(sources, locations[i]);
+                locations[i] += destinations[segment] - sources[segment];
+            }
+            List<long[]> mapped = new ArrayList<>();
+            for (long[] range : ranges) {
+                for (int segment = segment(sources, range[0]); segment < rows && sources[segment] < range[1]; segment++) {
+                    long from = Math.max(range[0], sources[segment]);
+                    long to = Math.min(range[1], sources[segment + 1]);
+                    long offset = destinations[segment] - sources[segment];
+                    mapped.add(new long[]{from + offset, to + offset});
+                }
+            }
+            ranges = mapped;
+        }
+        for (long location : locations) {
+            partOne = Math.min(partOne, location);
+        }
+        long partTwo = Long.MAX_VALUE;
+        for (long[] range : ranges) {
+            partTwo = Math.min(partTwo, range[0]);
+        }
+        return new Answers(partOne, partTwo);
+    }
+
+    /**
+     * The lines of one map, in the order they are written
+     */
+    static final class MapLines {
+        long[] destinations, sources, lengths;
+        int count;
+        /** Bytes the lines take, each with the line break before it */
+        long bytes;
+
+        MapLines(int capacity) {
+            destinations = new long[capacity];
+            sources = new long[capacity];
+            lengths = new long[capacity];
+        }
+
+        void add(long destination, long source, long length) {
+            if (count == lengths.length) {
+                int capacity = Math.max(16, count + (count >> 1));
+                destinations = Arrays.copyOf(destinations, capacity);
+                sources = Arrays.copyOf(sources, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            destinations[count] = destination;
+            sources[count] = source;
+            lengths[count] = length;
+            bytes += bytes(count);
+            count++;
+        }
+
+        /**
+         * Split lines in two until they take at least the given number of bytes. Both halves of a line move their
+         * numbers by the same amount as the whole line did, so the map, and with it every answer, stays the same.
+         * @param targetBytes bytes the lines should take at least
+         */
+        void splitUntil(long targetBytes, SplittableRandom random) {
+            int unsplittable = 0;
+            while (bytes < targetBytes && unsplittable < count) {
+                int line = random.nextInt(count);
+                long length = lengths[line];
+                if (length < 2) {
+                    unsplittable++;
+                    continue;
+                }
+                unsplittable = 0;
+                long first = random.nextLong(1, length);
+                bytes -= bytes(line);
+                lengths[line] = first;
+                bytes += bytes(line);
+                add(destinations[line] + first, sources[line] + first, length - first);
+            }
+        }
+
+        private long bytes(int line) {
+            return 3 + digits(destinations[line]) + digits(sources[line]) + digits(lengths[line]);
+        }
+
+        private static int digits(long number) {
+            return String.valueOf(number).length();
+        }
+    }
+
+    /**
+     * @return index of the segment holding the number
+     */
+    private static int segment(long[] sources, long number) {
+        int index = Arrays.binarySearch(sources, number);
+        return index >= 0 ? index : -index - 2;
+    }
+}
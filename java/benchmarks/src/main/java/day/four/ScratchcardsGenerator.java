@@ -0,0 +1,87 @@
+package day.four;
+
+import day.InputGenerator;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Generates scratchcards shaped like the real ones: ten winning numbers and twenty five scratched numbers, from 1 to
+ * 99. How many numbers match is chosen first, then that many winning numbers are copied to the scratched side and
+ * the rest are filled with numbers that don't win. Copies won for part two are counted as cards are written, with a
+ * ring buffer of upcoming copies, so memory doesn't grow with the input.
+ */
+public class ScratchcardsGenerator implements InputGenerator {
+
+    static final int WINNING = 10, SCRATCHED = 25, NUMBERS = 100;
+
+    /** Chance that a card has any matches at all */
+    private final double matchChance;
+    /** Most matches a card can have. With matchChance, keeps the number of copies won from growing exponentially. */
+    private final int maxMatches;
+
+    public ScratchcardsGenerator() {
+        this(0.3, 3);
+    }
+
+    public ScratchcardsGenerator(double matchChance, int maxMatches) {
+        if (maxMatches > WINNING) {
+            throw new IllegalArgumentException("A card can't match more than its " + WINNING + " winning numbers");
+        }
+        this.matchChance = matchChance;
+        this.maxMatches = maxMatches;
+    }
+
+    @Override
+    public String day() {
+        return "four";
+    }
+
+    @Override
+    public Answers generate(LineOutput out, long targetBytes, SplittableRandom random) throws IOException {
+        long partOne = 0, partTwo = 0;
+        long[] wonCopies = new long[maxMatches + 1];
+        int[] numbers = new int[NUMBERS - 1];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = i + 1;
+        }
+        for (int id = 1; out.written() < targetBytes; id++) {
+            int matches = random.nextDouble() < matchChance ? random.nextInt(1, maxMatches + 1) : 0;
+            // shuffle just enough of the numbers: the first WINNING win, the rest never do
+            for (int i = 0; i < WINNING + SCRATCHED; i++) {
+                int j = random.nextInt(i, numbers.length);
+                int swap = numbers[i];
+                numbers[i] = numbers[j];
+                numbers[j] = swap;
+            }
+            StringBuilder line = out.line();
+            line.append("Card ").append(id).append(':');
+            for (int i = 0; i < WINNING; i++) {
+                appendNumber(line, numbers[i]);
+            }
+            line.append(" |");
+            // matching numbers are the first few winning ones, at a random place among the scratched numbers
+            int matchAt = random.nextInt(SCRATCHED - matches + 1);
+            for (int i = 0, match = 0, miss = 0; i < SCRATCHED; i++) {
+                boolean matching = i >= matchAt && match < matches;
+                appendNumber(line, matching ? numbers[match++] : numbers[WINNING + miss++]);
+            }
+            out.endLine();
+
+            int slot = id % wonCopies.length;
+            long instances = Math.addExact(wonCopies[slot], 1);
+            wonCopies[slot] = 0;
+            for (int i = 1; i <= matches; i++) {
+                int next = (id + i) % wonCopies.length;
+                wonCopies[next] = Math.addExact(wonCopies[next], instances);
+            }
+            partOne += matches == 0 ? 0 : 1L << (matches - 1);
+            partTwo = Math.addExact(partTwo, instances);
+        }
+        return new Answers(partOne, partTwo);
+    }
+
+    private static void appendNumber(StringBuilder line, int number) {
+        line.append(number < 10 ? "  " : " ").append(number);
+    }
+}
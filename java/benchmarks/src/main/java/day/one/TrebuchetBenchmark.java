@@ -0,0 +1,92 @@
+package day.one;
+
+import day.BenchmarkInput;
+import day.LineCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the per-line work done by {@link Trebuchet}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class TrebuchetBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int lines;
+
+    private String[] input;
+    private byte[][] bytes;
+    private byte[] buffer;
+    private DigitKernel scalarKernel, vectorKernel;
+
+    @Setup
+    public void setup() {
+        input = BenchmarkInput.lines("one", lines);
+        String[] source = BenchmarkInput.sourceLines("one");
+        byte[][] sourceBytes = new byte[source.length][];
+        for (int i = 0; i < source.length; i++) {
+            sourceBytes[i] = source[i].getBytes(StandardCharsets.ISO_8859_1);
+        }
+        bytes = new byte[lines][];
+        for (int i = 0; i < lines; i++) {
+            bytes[i] = sourceBytes[i % source.length];
+        }
+        buffer = String.join("\n", input).getBytes(StandardCharsets.ISO_8859_1);
+        scalarKernel = new ScalarDigitKernel();
+        vectorKernel = new VectorDigitKernel();
+    }
+
+    @Benchmark
+    public void getCalibrationValue(LineCounter counter, Blackhole bh) {
+        for (String line : input) {
+            bh.consume(Trebuchet.getCalibrationValue(line));
+        }
+        counter.lines += input.length;
+    }
+
+    @Benchmark
+    public void parseNumericStrings(LineCounter counter, Blackhole bh) {
+        for (String line : input) {
+            bh.consume(Trebuchet.parseNumericStrings(line));
+        }
+        counter.lines += input.length;
+    }
+
+    @Benchmark
+    public void digitWordScanner(LineCounter counter, Blackhole bh) {
+        for (byte[] line : bytes) {
+            bh.consume(Trebuchet.DIGIT_WORD_SCANNER.getCalibrationValue(line, 0, line.length));
+        }
+        counter.lines += bytes.length;
+    }
+
+    @Benchmark
+    public long scalarKernel(LineCounter counter) {
+        counter.lines += lines;
+        return scalarKernel.sumCalibrationValues(buffer, 0, buffer.length);
+    }
+
+    @Benchmark
+    public long vectorKernel(LineCounter counter) {
+        counter.lines += lines;
+        return vectorKernel.sumCalibrationValues(buffer, 0, buffer.length);
+    }
+}
@@ -0,0 +1,91 @@
+package day.one;
+
+import day.InputGenerator;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Generates calibration documents. Each line is a run of tokens kept apart by letters that appear in no digit word,
+ * so no word can form across two tokens. A token is a digit, a digit word, or two words sharing a letter such as
+ * 'eightwo'. The first and last digit of a line are then simply those of its first and last token, with and without
+ * words counted, and every line holds at least one plain digit so part one always has an answer.
+ */
+public class TrebuchetGenerator implements InputGenerator {
+
+    static final String[] WORDS = {"one", "two", "three", "four", "five", "six", "seven", "eight", "nine"};
+    /** Words that overlap by a letter, and the two digits each one reads as */
+    static final String[] OVERLAPS = {"oneight", "twone", "threeight", "fiveight", "sevenine", "eightwo", "eighthree", "nineight"};
+    static final int[][] OVERLAP_DIGITS = {{1, 8}, {2, 1}, {3, 8}, {5, 8}, {7, 9}, {8, 2}, {8, 3}, {9, 8}};
+    /** Letters found in no digit word */
+    static final String FILLER = "abcdjklmpqyz";
+
+    /** Chance that a token is a word or overlapping pair rather than a digit */
+    private final double wordChance;
+
+    public TrebuchetGenerator() {
+        this(0.5);
+    }
+
+    public TrebuchetGenerator(double wordChance) {
+        this.wordChance = wordChance;
+    }
+
+    @Override
+    public String day() {
+        return "one";
+    }
+
+    @Override
+    public Answers generate(LineOutput out, long targetBytes, SplittableRandom random) throws IOException {
+        long partOne = 0, partTwo = 0;
+        while (out.written() < targetBytes) {
+            StringBuilder line = out.line();
+            int tokens = 1 + random.nextInt(6);
+            int digitToken = random.nextInt(tokens);
+            int firstDigit = -1, lastDigit = -1, firstAny = -1, lastAny = -1;
+            filler(line, random);
+            for (int token = 0; token < tokens; token++) {
+                if (token != digitToken && random.nextDouble() < wordChance) {
+                    int first, last;
+                    if (random.nextInt(3) == 0) {
+                        int overlap = random.nextInt(OVERLAPS.length);
+                        line.append(OVERLAPS[overlap]);
+                        first = OVERLAP_DIGITS[overlap][0];
+                        last = OVERLAP_DIGITS[overlap][1];
+                    } else {
+                        int word = random.nextInt(WORDS.length);
+                        line.append(WORDS[word]);
+                        first = last = word + 1;
+                    }
+                    if (firstAny < 0) {
+                        firstAny = first;
+                    }
+                    lastAny = last;
+                } else {
+                    int digit = random.nextInt(10);
+                    line.append((char) ('0' + digit));
+                    if (firstDigit < 0) {
+                        firstDigit = digit;
+                    }
+                    lastDigit = digit;
+                    if (firstAny < 0) {
+                        firstAny = digit;
+                    }
+                    lastAny = digit;
+                }
+                filler(line, random);
+            }
+            out.endLine();
+            partOne += firstDigit * 10 + lastDigit;
+            partTwo += firstAny * 10 + lastAny;
+        }
+        return new Answers(partOne, partTwo);
+    }
+
+    private static void filler(StringBuilder line, SplittableRandom random) {
+        for (int i = random.nextInt(1, 6); i > 0; i--) {
+            line.append(FILLER.charAt(random.nextInt(FILLER.length())));
+        }
+    }
+}
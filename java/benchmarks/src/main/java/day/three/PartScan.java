@@ -0,0 +1,206 @@
+package day.three;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static day.AdventOfCodeSolution.debugLog;
+
+/**
+ * The original way of finding parts, one number at a time, checking the cells around each for a symbol.
+ * {@link SchematicIndex} replaced it, and it is kept as the baseline for {@link SchematicBenchmark}.
+ */
+class PartScan {
+
+    protected SchematicGrid grid;
+    protected List<Part> parts;
+
+    public PartScan(List<String> schematic) {
+        this.grid = new SchematicGrid(schematic);
+        this.parts = new ArrayList<>();
+    }
+
+    /**
+     * Iterates over the schematic and extracts parts that have a symbol adjacent to them.
+     */
+    public List<Part> getValidParts() {
+        byte[] cells = grid.cells;
+        for (int y = 0; y < grid.height; y++) {
+            int index = grid.index(0, y);
+            int rowEnd = index + grid.width;
+            // the padding column after each row is never a digit, so every number ends inside the row
+            while (index < rowEnd) {
+                if (SchematicGrid.CHARACTER_CLASS[cells[index] & 0xff] != SchematicGrid.DIGIT) {
+                    index++;
+                    continue;
+                }
+                int partStart = index;
+                while (SchematicGrid.CHARACTER_CLASS[cells[index] & 0xff] == SchematicGrid.DIGIT) {
+                    index++;
+                }
+                validatePart(partStart - grid.index(0, y), y, new String(cells, partStart, index - partStart, StandardCharsets.ISO_8859_1));
+            }
+        }
+        return this.parts;
+    }
+
+    /**
+     * Create a part and check if it is valid. Add it to the list of valid parts if so.
+     * @param x x position of the part
+     * @param y y position of the part
+     * @param id part ID
+     */
+    public void validatePart(int x, int y, String id) {
+        Part newPart = new Part(x, y, id);
+        if (hasAdjacentSymbol(newPart)) {
+            this.parts.add(newPart);
+        }
+    }
+
+    /**
+     * Does the provided part have an adjacent symbol?
+     * @param p the part to check
+     * @return true of the part has an adjacent symbol. False otherwise.
+     */
+    public boolean hasAdjacentSymbol(Part p) {
+        int length = p.id.length();
+        byte[] cells = grid.cells;
+        for(int i = -1; i <= length; i++) {
+            int below = grid.index(p.x + i, p.y + 1);
+            int middle = grid.index(p.x + i, p.y);
+            int above = grid.index(p.x + i, p.y - 1);
+            if (isSymbol(cells[below]) | isSymbol(cells[middle]) | isSymbol(cells[above])) {
+                if (cells[below] == '*' || cells[middle] == '*' || cells[above] == '*') {
+                    p.hasAdjacentAsterisk = true;
+                    displayPart(p);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Print out a visual representation of a part for debugging
+     * @param p part to print
+     */
+    public void displayPart(Part p) {
+        debugLog(() -> {
+            StringBuilder sb = new StringBuilder();
+            sb.append("\n");
+            for(int y = p.y - 1; y <= p.y+1; y++) {
+                for (int x = p.x-1; x <= p.x+p.id.length(); x++) {
+                    sb.append(getSymbolAsChar(x, y));
+                }
+                sb.append("\n");
+            }
+            return p.toString() + sb.toString();
+        });
+    }
+
+    /**
+     * Return the symbol at the indicated position in the schematic. Out of bounds positions return as '.'
+     * @param x x position
+     * @param y y position
+     * @return the symbol at the indicated position
+     */
+    public String getSymbol(int x, int y) {
+        return String.valueOf(getSymbolAsChar(x, y));
+    }
+
+    /**
+     * Return the symbol at the indicated position in the schematic. Out of bounds positions return as '.'
+     * @param x x position
+     * @param y y position
+     * @return the symbol at the indicated position
+     */
+    public char getSymbolAsChar(int x, int y) {
+        return (char) (grid.at(x, y) & 0xff);
+    }
+
+    /**
+     * Checks if the provided character is a symbol.
+     * @param symbol the symbol to check
+     * @return true if it is a symbol. False otherwise.
+     */
+    public boolean isSymbol(String symbol) {
+        if (symbol.length() > 1 || symbol.length() == 0) {
+            System.out.println("Unable to work with string that isn't size one: " + symbol);
+            return false;
+        }
+        return isSymbol(symbol.charAt(0));
+    }
+
+    /**
+     * Is the provided string a symbol? Assumes String of size 1.
+     * @param symbol
+     * @return true if the provided string is a symbol.
+     */
+    public boolean isDigit(String symbol) {
+        return symbol.chars().allMatch(Character::isDigit);
+    }
+
+    /**
+     * Is the provided character a symbol? Assumes String of size 1.
+     * @param symbol
+     * @return true if the provided char is a symbol.
+     */
+    public boolean isSymbol(char symbol) {
+        return symbol < 256 && isSymbol((byte) symbol);
+    }
+
+    /**
+     * Is the provided byte from the grid a symbol?
+     * @param symbol
+     * @return true if the provided byte is a symbol.
+     */
+    static boolean isSymbol(byte symbol) {
+        return SchematicGrid.CHARACTER_CLASS[symbol & 0xff] == SchematicGrid.SYMBOL;
+    }
+}
+
+/**
+ * Simple object representation of a part in the engine.
+ * Just holds the necessary data types.
+ */
+class Part {
+    protected int x,y;
+    protected String id;
+    protected boolean hasAdjacentAsterisk;
+    public Part (int x, int y, String id) {
+        this.x = x;
+        this.y = y;
+        this.id = id;
+        this.hasAdjacentAsterisk = false;
+    }
+
+    public Part (int x, int y, String id, boolean hasAdjacentAsterisk) {
+        this.x = x;
+        this.y = y;
+        this.id = id;
+        this.hasAdjacentAsterisk = hasAdjacentAsterisk;
+    }
+
+    public int getId() {
+        return Integer.parseInt(this.id);
+    }
+
+    @Override
+    public String toString() {
+        return "Part{ X: " + this.x + ", Y: " + this.y + ", id: " + this.id + ", hasAdjacentAsterisk: " + this.hasAdjacentAsterisk +  "}";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Part part = (Part) o;
+        return x == part.x && y == part.y && hasAdjacentAsterisk == part.hasAdjacentAsterisk && id.equals(part.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(x, y, id, hasAdjacentAsterisk);
+    }
+}
@@ -0,0 +1,56 @@
+package day.three;
+
+import day.BenchmarkInput;
+import day.LineCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks part discovery over a {@link Schematic} that is the requested number of rows tall, against the
+ * original {@link PartScan} it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SchematicBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int lines;
+
+    private List<String> rows;
+
+    @Setup
+    public void setup() {
+        rows = Arrays.asList(BenchmarkInput.lines("three", lines));
+    }
+
+    @Benchmark
+    public Object getValidParts(LineCounter counter) {
+        PartScan scan = new PartScan(rows);
+        counter.lines += lines;
+        return scan.getValidParts();
+    }
+
+    @Benchmark
+    public Object getIndex(LineCounter counter) {
+        Schematic schematic = new Schematic(rows);
+        counter.lines += lines;
+        return schematic.getIndex();
+    }
+}
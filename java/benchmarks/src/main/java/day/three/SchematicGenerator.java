@@ -0,0 +1,158 @@
+package day.three;
+
+import day.InputGenerator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates engine schematics out of 10 by 4 tiles. Most tiles only fill in their top left 9 by 3 cells, so nothing
+ * in one tile touches anything in another, and each tile holds one of a few patterns whose parts and gears are known:
+ * <pre>
+ * plain      part       gear       lone star  crowded star  stacked gear
+ * .........  .123.....  .........  .........  12.34....     .12......
+ * .456.....  ....#....  123*45...  .123*....  ..*......     ...*.....
+ * .........  .........  .........  .........  .567.....     ...345...
+ * </pre>
+ * The crowded star touches three numbers, so it is not a gear.
+ * A tall gear is a stacked gear moved down two rows, so its star sits on the tile's empty fourth row and its lower
+ * number on the top row of the tile below, which is left empty otherwise. So some gears span every pair of rows, and
+ * wherever a schematic is split into bands of rows, parts and gears cross the boundary.
+ */
+public class SchematicGenerator implements InputGenerator {
+
+    static final int TILE_WIDTH = 10, TILE_HEIGHT = 4;
+    static final String SYMBOLS = "#$%&+-/=@";
+
+    private final int tilesPerRow;
+    /** Chance that a tile has a symbol in it */
+    private final double symbolDensity;
+
+    public SchematicGenerator() {
+        this(14, 0.6);
+    }
+
+    public SchematicGenerator(int tilesPerRow, double symbolDensity) {
+        this.tilesPerRow = tilesPerRow;
+        this.symbolDensity = symbolDensity;
+    }
+
+    @Override
+    public String day() {
+        return "three";
+    }
+
+    @Override
+    public Answers generate(LineOutput out, long targetBytes, SplittableRandom random) throws IOException {
+        long partSum = 0, gearRatioSum = 0;
+        // one row more than a tile, for the top row of the tiles below, which tall gears reach into
+        char[][] rows = new char[TILE_HEIGHT + 1][tilesPerRow * TILE_WIDTH];
+        for (char[] row : rows) {
+            Arrays.fill(row, '.');
+        }
+        boolean[] reserved = new boolean[tilesPerRow], reservedBelow = new boolean[tilesPerRow];
+        while (out.written() < targetBytes) {
+            for (int tile = 0; tile < tilesPerRow; tile++) {
+                int x = tile * TILE_WIDTH;
+                if (reserved[tile]) {
+                    // the bottom of a tall gear from the tile above is in the top row
+                    continue;
+                }
+                if (random.nextDouble() >= symbolDensity) {
+                    put(rows[1], x + 1, number(random, 3));
+                    continue;
+                }
+                switch (random.nextInt(6)) {
+                    case 0: {
+                        long part = number(random, random.nextInt(1, 4));
+                        int end = put(rows[0], x + 1, part);
+                        rows[1][end] = SYMBOLS.charAt(random.nextInt(SYMBOLS.length()));
+                        partSum += part;
+                        break;
+                    }
+                    case 1: {
+                        long left = number(random, random.nextInt(1, 4));
+                        long right = number(random, random.nextInt(1, 4));
+                        put(rows[1], x + 3 - String.valueOf(left).length(), left);
+                        rows[1][x + 3] = '*';
+                        put(rows[1], x + 4, right);
+                        partSum += left + right;
+                        gearRatioSum += left * right;
+                        break;
+                    }
+                    case 2: {
+                        long part = number(random, 3);
+                        rows[1][put(rows[1], x + 1, part)] = '*';
+                        partSum += part;
+                        break;
+                    }
+                    case 3: {
+                        long a = number(random, 2), b = number(random, 2), c = number(random, 3);
+                        put(rows[0], x, a);
+                        put(rows[0], x + 3, b);
+                        rows[1][x + 2] = '*';
+                        put(rows[2], x + 1, c);
+                        partSum += a + b + c;
+                        break;
+                    }
+                    default: {
+                        // stacked in the tile, or tall, reaching into the tile below
+                        boolean tall = random.nextBoolean();
+                        int top = tall ? 2 : 0;
+                        long above = number(random, random.nextInt(1, 4));
+                        long below = number(random, random.nextInt(1, 4));
+                        put(rows[top], x + 4 - String.valueOf(above).length(), above);
+                        rows[top + 1][x + 3] = '*';
+                        put(rows[top + 2], x + 3, below);
+                        reservedBelow[tile] = tall;
+                        partSum += above + below;
+                        gearRatioSum += above * below;
+                    }
+                }
+            }
+            for (int row = 0; row < TILE_HEIGHT; row++) {
+                out.line().append(rows[row]);
+                out.endLine();
+            }
+            // the extra row becomes the top row of the next tiles
+            char[] top = rows[0];
+            rows[0] = rows[TILE_HEIGHT];
+            rows[TILE_HEIGHT] = top;
+            for (int row = 1; row <= TILE_HEIGHT; row++) {
+                Arrays.fill(rows[row], '.');
+            }
+            boolean[] swap = reserved;
+            reserved = reservedBelow;
+            reservedBelow = swap;
+            Arrays.fill(reservedBelow, false);
+        }
+        for (boolean tall : reserved) {
+            if (tall) {
+                // finish the tall gears in the last row of tiles
+                out.line().append(rows[0]);
+                out.endLine();
+                break;
+            }
+        }
+        return new Answers(partSum, gearRatioSum);
+    }
+
+    /**
+     * @return a number with exactly that many digits
+     */
+    private static long number(SplittableRandom random, int digits) {
+        long low = digits == 1 ? 0 : (long) Math.pow(10, digits - 1);
+        return random.nextLong(low, (long) Math.pow(10, digits));
+    }
+
+    /**
+     * Write a number into a row
+     * @return the column after the number
+     */
+    private static int put(char[] row, int x, long number) {
+        String digits = String.valueOf(number);
+        digits.getChars(0, digits.length(), row, x);
+        return x + digits.length();
+    }
+}
@@ -0,0 +1,95 @@
+package day.two;
+
+import day.BenchmarkInput;
+import day.LineCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing and scoring the games handled by {@link Cubes}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CubesBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int lines;
+
+    private String[][] draws;
+    private Game[] games;
+    private byte[][] bytes;
+
+    @Setup
+    public void setup() {
+        // Lines repeat, so only parse each distinct line once and share the results
+        String[] source = BenchmarkInput.sourceLines("two");
+        String[][] sourceDraws = new String[source.length][];
+        Game[] sourceGames = new Game[source.length];
+        for (int i = 0; i < source.length; i++) {
+            sourceDraws[i] = source[i].substring(source[i].indexOf(':') + 2).split(";");
+            sourceGames[i] = new Game();
+            for (String draw : sourceDraws[i]) {
+                sourceGames[i].parseGame(draw);
+            }
+        }
+        byte[][] sourceBytes = new byte[source.length][];
+        for (int i = 0; i < source.length; i++) {
+            sourceBytes[i] = source[i].getBytes(StandardCharsets.ISO_8859_1);
+        }
+        draws = new String[lines][];
+        games = new Game[lines];
+        bytes = new byte[lines][];
+        for (int i = 0; i < lines; i++) {
+            draws[i] = sourceDraws[i % source.length];
+            games[i] = sourceGames[i % source.length];
+            bytes[i] = sourceBytes[i % source.length];
+        }
+    }
+
+    @Benchmark
+    public void parseGame(LineCounter counter, Blackhole bh) {
+        for (String[] line : draws) {
+            Game g = new Game();
+            for (String draw : line) {
+                g.parseGame(draw);
+            }
+            bh.consume(g);
+        }
+        counter.lines += draws.length;
+    }
+
+    @Benchmark
+    public void getMinCubes(LineCounter counter, Blackhole bh) {
+        for (Game g : games) {
+            bh.consume(g.getMinCubes(Color.RED) * g.getMinCubes(Color.GREEN) * g.getMinCubes(Color.BLUE));
+        }
+        counter.lines += games.length;
+    }
+
+    @Benchmark
+    public void gameParser(LineCounter counter, Blackhole bh) {
+        GameParser parser = new GameParser();
+        for (byte[] line : bytes) {
+            parser.parse(line, 0, line.length, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            bh.consume((long) parser.red * parser.green * parser.blue);
+        }
+        counter.lines += bytes.length;
+    }
+}
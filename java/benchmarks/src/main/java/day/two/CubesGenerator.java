@@ -0,0 +1,63 @@
+package day.two;
+
+import day.InputGenerator;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Generates games of cubes, i.e. 'Game 1: 3 blue, 4 red; 1 red, 2 green, 6 blue'. The most cubes of each color drawn
+ * in a game is tracked as it is written, which is all either part needs.
+ */
+public class CubesGenerator implements InputGenerator {
+
+    static final String[] COLORS = {"red", "green", "blue"};
+    static final int[] LIMITS = {Cubes.RED_LIMIT, Cubes.GREEN_LIMIT, Cubes.BLUE_LIMIT};
+
+    /** Most cubes of one color in a single draw. Games stay within the part one limits less often as this grows. */
+    private final int maxCubes;
+
+    public CubesGenerator() {
+        this(20);
+    }
+
+    public CubesGenerator(int maxCubes) {
+        this.maxCubes = maxCubes;
+    }
+
+    @Override
+    public String day() {
+        return "two";
+    }
+
+    @Override
+    public Answers generate(LineOutput out, long targetBytes, SplittableRandom random) throws IOException {
+        long partOne = 0, partTwo = 0;
+        int[] most = new int[COLORS.length];
+        for (int id = 1; out.written() < targetBytes; id++) {
+            StringBuilder line = out.line();
+            line.append("Game ").append(id).append(':');
+            most[0] = most[1] = most[2] = 0;
+            int draws = random.nextInt(1, 7);
+            for (int draw = 0; draw < draws; draw++) {
+                int colors = random.nextInt(1, COLORS.length + 1);
+                int firstColor = random.nextInt(COLORS.length);
+                for (int i = 0; i < colors; i++) {
+                    int color = (firstColor + i) % COLORS.length;
+                    int count = random.nextInt(1, maxCubes + 1);
+                    most[color] = Math.max(most[color], count);
+                    line.append(' ').append(count).append(' ').append(COLORS[color]).append(i + 1 < colors ? "," : "");
+                }
+                if (draw + 1 < draws) {
+                    line.append(';');
+                }
+            }
+            out.endLine();
+            if (most[0] <= LIMITS[0] && most[1] <= LIMITS[1] && most[2] <= LIMITS[2]) {
+                partOne += id;
+            }
+            partTwo += (long) most[0] * most[1] * most[2];
+        }
+        return new Answers(partOne, partTwo);
+    }
+}
@@ -0,0 +1,124 @@
+package day.three;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks {@link SchematicIndex} finds the same parts as the original {@link PartScan}, and the same gears as a
+ * search around every '*', on random schematics. Bands of a few rows mean plenty of parts and gears sit on a band
+ * boundary, with their number in one band and their symbol in the next.
+ */
+class SchematicIndexTest {
+
+    private static final String SYMBOLS = "**#+$-";
+
+    @Test
+    void sampleMatchesPuzzle() {
+        List<String> rows = List.of("467..114..", "...*......", "..35..633.", "......#...", "617*......",
+                ".....+.58.", "..592.....", "......755.", "...$.*....", ".664.598..");
+        SchematicIndex index = new Schematic(rows).getIndex();
+        assertEquals(4361, index.partSum);
+        assertEquals(467835, index.gearRatioSum(2));
+    }
+
+    @Test
+    void randomSchematicsMatchPartScan() {
+        SplittableRandom random = new SplittableRandom(3);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 500; round++) {
+                List<String> rows = randomSchematic(random, 1 + random.nextInt(30), 1 + random.nextInt(40));
+                long[] expectedParts = new PartScan(rows).getValidParts().stream().mapToLong(Part::getId).toArray();
+                long expectedRatios = gearRatioSum(rows);
+
+                Schematic schematic = new Schematic(rows);
+                for (int bandRows : new int[]{1, 2, 3, rows.size()}) {
+                    SchematicIndex index = schematic.getIndex(pool, bandRows);
+                    String message = "band of " + bandRows + " rows over " + rows;
+                    assertArrayEquals(expectedParts, Arrays.copyOf(index.partValues, index.partCount), message);
+                    assertEquals(sum(expectedParts), index.partSum, message);
+                    assertEquals(expectedRatios, index.gearRatioSum(2), message);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return rows of numbers up to three digits long, symbols and blanks, with numbers often right next to a symbol
+     */
+    private static List<String> randomSchematic(SplittableRandom random, int width, int height) {
+        List<String> rows = new ArrayList<>();
+        for (int y = 0; y < height; y++) {
+            StringBuilder row = new StringBuilder();
+            while (row.length() < width) {
+                int kind = random.nextInt(4);
+                if (kind == 0) {
+                    row.append(1 + random.nextInt(999));
+                    row.append(random.nextBoolean() ? '.' : SYMBOLS.charAt(random.nextInt(SYMBOLS.length())));
+                } else if (kind == 1) {
+                    row.append(SYMBOLS.charAt(random.nextInt(SYMBOLS.length())));
+                } else {
+                    row.append('.');
+                }
+            }
+            row.setLength(width);
+            rows.add(row.toString());
+        }
+        return rows;
+    }
+
+    /**
+     * @return the sum of the ratios of every '*' touching exactly two numbers, found by looking around each '*'
+     */
+    private static long gearRatioSum(List<String> rows) {
+        List<long[]> numbers = new ArrayList<>();
+        for (int y = 0; y < rows.size(); y++) {
+            String row = rows.get(y);
+            for (int x = 0; x < row.length(); x++) {
+                if (Character.isDigit(row.charAt(x))) {
+                    int start = x;
+                    while (x < row.length() && Character.isDigit(row.charAt(x))) {
+                        x++;
+                    }
+                    numbers.add(new long[]{y, start, x, Long.parseLong(row.substring(start, x))});
+                }
+            }
+        }
+        long total = 0;
+        for (int y = 0; y < rows.size(); y++) {
+            for (int x = 0; x < rows.get(y).length(); x++) {
+                if (rows.get(y).charAt(x) != '*') {
+                    continue;
+                }
+                List<Long> touching = new ArrayList<>();
+                for (long[] number : numbers) {
+                    if (Math.abs(number[0] - y) <= 1 && number[1] - 1 <= x && x <= number[2]) {
+                        touching.add(number[3]);
+                    }
+                }
+                if (touching.size() == 2) {
+                    total += touching.get(0) * touching.get(1);
+                }
+            }
+        }
+        return total;
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+}
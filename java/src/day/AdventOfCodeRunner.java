@@ -0,0 +1,375 @@
+package day;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Finds every solution on the classpath and runs them all at once, each day on its own fork-join pool so that its
+ * parallel work, and the bytes that work allocates, are kept apart from the other days.
+ * For every day it reports how long loading the input, parsing it and each part took, how many bytes were allocated,
+ * and the answers, both as a table and as JSON.
+ * Usage: AdventOfCodeRunner [--fused] [--json file]. Without --json the JSON is printed after the table.
+ * With --fused both parts are solved together by {@link AdventOfCodeSolution#solveBoth()} and timed as one phase.
+ * Or: AdventOfCodeRunner --watch day [file], to follow one day's input as it is appended to and print the answers
+ * each time it changes, until stopped.
+ */
+public class AdventOfCodeRunner {
+
+    static final String SOLUTION_PACKAGE = "day";
+
+    public static void main(String[] args) throws Exception {
+        Path jsonFile = null;
+        boolean fused = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--fused")) {
+                fused = true;
+            } else if (args[i].equals("--json") && i + 1 < args.length) {
+                jsonFile = Path.of(args[++i]);
+            } else if (args[i].equals("--watch") && i + 1 < args.length) {
+                watch(args[i + 1], i + 2 < args.length ? Path.of(args[i + 2]) : null);
+                return;
+            }
+        }
+
+        boolean runFused = fused;
+
+        List<Class<? extends AdventOfCodeSolution<?>>> solutions = findSolutions();
+        List<DayPool> pools = new ArrayList<>();
+        List<Future<DayReport>> futures = new ArrayList<>();
+        try {
+            for (Class<? extends AdventOfCodeSolution<?>> solution : solutions) {
+                DayPool pool = new DayPool(dayOf(solution));
+                pools.add(pool);
+                futures.add(pool.pool.submit(() -> run(solution, pool, runFused)));
+            }
+            List<DayReport> reports = new ArrayList<>();
+            for (Future<DayReport> future : futures) {
+                reports.add(future.get());
+            }
+            report(reports, jsonFile);
+        } finally {
+            for (DayPool pool : pools) {
+                pool.pool.shutdown();
+            }
+        }
+    }
+
+    private static void report(List<DayReport> reports, Path jsonFile) throws IOException {
+        System.out.println(toTable(reports));
+        if (jsonFile == null) {
+            System.out.println(toJson(reports));
+        } else {
+            Files.writeString(jsonFile, toJson(reports));
+        }
+    }
+
+    /**
+     * Run a single day as a task on its own pool, timing each phase. Parallel work the day starts runs on the same
+     * pool, see {@link AdventOfCodeSolution#currentPool()}, so allocations are counted on that pool's workers only.
+     * @param solutionClass the solution to run
+     * @param pool the pool this is running on
+     * @param fused whether to solve both parts in one go rather than one after the other
+     * @return a report of what happened
+     */
+    static DayReport run(Class<? extends AdventOfCodeSolution<?>> solutionClass, DayPool pool, boolean fused) {
+        String day = dayOf(solutionClass);
+        DayReport report = new DayReport(day, solutionClass.getSimpleName());
+        PhaseTimer timer = new PhaseTimer(pool);
+        try {
+            AdventOfCodeSolution<?> solution = solutionClass.getConstructor(String.class).newInstance(day);
+            // a model read from the cache never loads the input, otherwise load it now so it is timed on its own
+            boolean mapped = solution.isMapped();
+            if (mapped) {
+                solution.mapped();
+            } else if (fused || !AdventOfCodeSolution.CACHE || solution.codec() == null) {
+                solution.arena();
+            }
+            report.load = timer.lap();
+            if (fused) {
+                Result[] results = solution.runBoth();
+                report.bothTiming = timer.lap();
+                report.partOne = String.valueOf(results[0]);
+                report.partTwo = String.valueOf(results[1]);
+                return report;
+            }
+            // mapped inputs are solved straight from the mapping, without building a model
+            if (!mapped) {
+                solution.model();
+                report.parse = timer.lap();
+            }
+            report.partOne = String.valueOf(solution.runPart(1));
+            report.partOneTiming = timer.lap();
+            report.partTwo = String.valueOf(solution.runPart(2));
+            report.partTwoTiming = timer.lap();
+        } catch (Throwable e) {
+            report.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        return report;
+    }
+
+    /**
+     * Follow one day's input, printing both answers every time lines are appended to it
+     * @param day the day to follow, i.e. 'two'
+     * @param input the file to follow, or null for the day's own input
+     */
+    static void watch(String day, Path input) throws Exception {
+        for (Class<? extends AdventOfCodeSolution<?>> solutionClass : findSolutions()) {
+            if (dayOf(solutionClass).equals(day)) {
+                AdventOfCodeSolution<?> solution = solutionClass.getConstructor(String.class).newInstance(day);
+                if (input != null) {
+                    solution.setInputPath(input);
+                }
+                if (solution.runningAnswers() == null) {
+                    System.out.println("Day " + day + " can only be solved over the whole input, so it can't be watched");
+                    return;
+                }
+                System.out.println("Watching " + solution.getInputPath());
+                solution.watch(answers -> System.out.println("Running total ( part 1 ): " + answers[0] + ", ( part 2 ): " + answers[1]));
+                return;
+            }
+        }
+        System.out.println("No solution found for day " + day);
+    }
+
+    /**
+     * Search the classpath for every concrete subclass of {@link AdventOfCodeSolution}. Only the packages for each day
+     * are searched, so the shared classes in {@value #SOLUTION_PACKAGE} itself, like {@link PhaseEvent}, aren't loaded
+     * unless something uses them.
+     * @return the solutions found, ordered by class name
+     */
+    static List<Class<? extends AdventOfCodeSolution<?>>> findSolutions() throws IOException {
+        List<String> classNames = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            Path path = Path.of(entry);
+            if (Files.isDirectory(path)) {
+                Path root = path.resolve(SOLUTION_PACKAGE);
+                if (Files.isDirectory(root)) {
+                    try (Stream<Path> files = Files.walk(root)) {
+                        files.map(file -> path.relativize(file).toString())
+                                .filter(name -> name.endsWith(".class"))
+                                .forEach(classNames::add);
+                    }
+                }
+            } else if (entry.endsWith(".jar") && Files.isRegularFile(path)) {
+                try (JarFile jar = new JarFile(path.toFile())) {
+                    Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (name.startsWith(SOLUTION_PACKAGE + "/") && name.endsWith(".class")) {
+                            classNames.add(name);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Class<? extends AdventOfCodeSolution<?>>> solutions = new ArrayList<>();
+        classNames.stream()
+                .map(name -> name.substring(0, name.length() - ".class".length()).replace('/', '.').replace('\\', '.'))
+                .filter(name -> name.lastIndexOf('.') > SOLUTION_PACKAGE.length())
+                .distinct()
+                .sorted()
+                .forEach(name -> {
+                    Class<?> c = loadClass(name);
+                    if (c != null && AdventOfCodeSolution.class.isAssignableFrom(c) && !Modifier.isAbstract(c.getModifiers())) {
+                        solutions.add(asSolution(c));
+                    }
+                });
+        return solutions;
+    }
+
+    /**
+     * Every solution is an AdventOfCodeSolution of some model, but which one can't be checked at runtime
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<? extends AdventOfCodeSolution<?>> asSolution(Class<?> solutionClass) {
+        return (Class<? extends AdventOfCodeSolution<?>>) solutionClass;
+    }
+
+    private static Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name, false, AdventOfCodeRunner.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Solutions live in a package named after their day, i.e. day.two.Cubes is day 'two'
+     */
+    static String dayOf(Class<?> solutionClass) {
+        String packageName = solutionClass.getPackageName();
+        return packageName.substring(packageName.lastIndexOf('.') + 1);
+    }
+
+    static String toTable(List<DayReport> reports) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-6s %-14s %-5s %12s %14s %-20s%n", "Day", "Solution", "Phase", "Time (ms)", "Allocated (B)", "Answer"));
+        for (DayReport r : reports) {
+            appendRow(sb, r, "load", r.load, "");
+            appendRow(sb, r, "parse", r.parse, "");
+            appendRow(sb, r, "both", r.bothTiming, r.partOne + " / " + r.partTwo);
+            appendRow(sb, r, "1", r.partOneTiming, r.partOne);
+            appendRow(sb, r, "2", r.partTwoTiming, r.partTwo);
+            if (r.error != null) {
+                sb.append(String.format("%-6s %-14s error: %s%n", r.day, r.solution, r.error));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendRow(StringBuilder sb, DayReport r, String phase, PhaseTiming timing, String answer) {
+        if (timing == null) {
+            return;
+        }
+        sb.append(String.format("%-6s %-14s %-5s %12.3f %14d %-20s%n", r.day, r.solution, phase, timing.nanos / 1e6, timing.allocatedBytes, answer));
+    }
+
+    static String toJson(List<DayReport> reports) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < reports.size(); i++) {
+            DayReport r = reports.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("  {\"day\": ").append(quote(r.day))
+                    .append(", \"solution\": ").append(quote(r.solution))
+                    .append(", \"load\": ").append(timingJson(r.load, null))
+                    .append(", \"parse\": ").append(timingJson(r.parse, null))
+                    .append(", \"both\": ").append(timingJson(r.bothTiming, r.partOne + " / " + r.partTwo))
+                    .append(", \"partOne\": ").append(timingJson(r.partOneTiming, r.partOne))
+                    .append(", \"partTwo\": ").append(timingJson(r.partTwoTiming, r.partTwo))
+                    .append(", \"error\": ").append(r.error == null ? "null" : quote(r.error))
+                    .append("}");
+        }
+        return sb.append("\n]").toString();
+    }
+
+    private static String timingJson(PhaseTiming timing, String answer) {
+        if (timing == null) {
+            return "null";
+        }
+        return "{\"nanos\": " + timing.nanos + ", \"allocatedBytes\": " + timing.allocatedBytes
+                + (answer == null ? "" : ", \"answer\": " + quote(answer)) + "}";
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+}
+
+/**
+ * What happened when a single day was run
+ */
+class DayReport {
+    final String day, solution;
+    PhaseTiming load, parse, bothTiming, partOneTiming, partTwoTiming;
+    String partOne, partTwo, error;
+
+    DayReport(String day, String solution) {
+        this.day = day;
+        this.solution = solution;
+    }
+}
+
+/**
+ * Time taken and bytes allocated by one phase of a run
+ */
+class PhaseTiming {
+    final long nanos, allocatedBytes;
+
+    PhaseTiming(long nanos, long allocatedBytes) {
+        this.nanos = nanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+}
+
+/**
+ * A fork-join pool for one day, which keeps the ids of every worker it starts so their allocations can be counted
+ */
+class DayPool implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+    final ForkJoinPool pool;
+    private final String day;
+    private long[] workerIds = new long[8];
+    private int workerCount;
+
+    DayPool(String day) {
+        this.day = day;
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), this, null, false);
+    }
+
+    @Override
+    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("day-" + day + "-" + worker.getPoolIndex());
+        synchronized (this) {
+            if (workerCount == workerIds.length) {
+                workerIds = Arrays.copyOf(workerIds, workerCount * 2);
+            }
+            workerIds[workerCount++] = worker.getId();
+        }
+        return worker;
+    }
+
+    /**
+     * @return the id of every worker started so far, in the order they were started
+     */
+    synchronized long[] workerIds() {
+        return Arrays.copyOf(workerIds, workerCount);
+    }
+}
+
+/**
+ * Measures consecutive phases of a day, counting the bytes allocated by the workers of its pool.
+ * Each worker is compared with what it had allocated at the last lap, so workers that start during a phase count in
+ * full, and a worker that ends during a phase only loses what it allocated in that phase.
+ */
+class PhaseTimer {
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final DayPool pool;
+    private long start;
+    /** Bytes each worker had allocated at the last lap, in the order the pool started them */
+    private long[] allocatedAtStart = new long[0];
+
+    PhaseTimer(DayPool pool) {
+        this.pool = pool;
+        start = System.nanoTime();
+        lap();
+        start = System.nanoTime();
+    }
+
+    /**
+     * @return time and allocations since the last lap, or since this timer was created
+     */
+    PhaseTiming lap() {
+        long now = System.nanoTime();
+        long[] allocated = THREADS.getThreadAllocatedBytes(pool.workerIds());
+        if (allocatedAtStart.length < allocated.length) {
+            allocatedAtStart = Arrays.copyOf(allocatedAtStart, allocated.length);
+        }
+        long total = 0;
+        for (int i = 0; i < allocated.length; i++) {
+            // -1 for a worker that has ended, which keeps what it had at the last lap
+            if (allocated[i] >= 0) {
+                total += allocated[i] - allocatedAtStart[i];
+                allocatedAtStart[i] = allocated[i];
+            }
+        }
+        PhaseTiming timing = new PhaseTiming(now - start, total);
+        start = now;
+        return timing;
+    }
+}
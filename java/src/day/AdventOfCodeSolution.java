@@ -1,40 +1,295 @@
 package day;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Scanner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-public abstract class AdventOfCodeSolution {
+/**
+ * A single day's puzzle. The input is parsed once into a model of type M the first time either part asks for it,
+ * so both parts share the same parsed input. The input itself is only loaded when something needs it, so a model
+ * read back from the {@link ModelCache} never loads the input at all.
+ * @param <M> what the input is parsed into
+ */
+public abstract class AdventOfCodeSolution<M> {
 
-    public static final boolean DEBUG_FLAG = true;
-    public static int total = 0;
+    /**
+     * How much to log. Ordered from most to least output.
+     */
+    public enum LogLevel { DEBUG, OFF }
+
+    /**
+     * Both answers kept up to date a line at a time, for following an input as it is appended to.
+     * Lines are handed over in order on one thread, and the answers are read on that same thread.
+     */
+    public interface RunningAnswers extends LineReader.LineConsumer {
+        /**
+         * @return the answers to part one and part two for every line accepted so far, in that order
+         */
+        Result[] answers();
+    }
+
+    /** Set with -Daoc.log=debug|off, or at runtime with {@link #setLogLevel(LogLevel)}. Off by default. */
+    private static volatile LogLevel logLevel = parseLogLevel(System.getProperty("aoc.log", "off"));
     public static final String FILE_OPERATIONS_ERROR_MSG = "Exception occurred during file operations. Exception message: %s";
     public static final String FILENAME = "input.txt";
-    public List<String> input;
+    /** Set with -Daoc.fused=true to solve both parts with {@link #solveBoth()} rather than one after the other */
+    public static final boolean FUSED = Boolean.getBoolean("aoc.fused");
+    /** Set with -Daoc.cache=false to always parse the input rather than use a {@link ModelCache} */
+    public static final boolean CACHE = !"false".equals(System.getProperty("aoc.cache"));
+    /**
+     * Set with -Daoc.mapped=true to map every input into memory rather than load it onto the heap, or false to never
+     * map one. By default only inputs larger than an {@link InputArena} can hold are mapped.
+     */
+    public static final String MAPPED = System.getProperty("aoc.mapped", "auto");
+
+    public final String day;
+    private Path inputPath;
+    private InputArena arena;
+    private MappedInput mapped;
+    private boolean loaded, mappedLoaded;
+    private M model;
+
+    public abstract Result solvePartOne();
+    public abstract Result solvePartTwo();
+
+    /**
+     * Parse the input into the model both parts are solved from. Only called once, by {@link #model()}.
+     * @return the parsed input. Neither part may change it.
+     */
+    protected abstract M parse();
+
+    /**
+     * @return how to save the model in a {@link ModelCache}, or null if it should be parsed every time
+     */
+    protected ModelCache.Codec<M> codec() {
+        return null;
+    }
+
+    /**
+     * Solve both parts together. By default each part is solved in turn from the shared model, but solutions that
+     * can find both answers in a single pass over the input override this.
+     * @return the answers to part one and part two, in that order
+     */
+    public Result[] solveBoth() {
+        return new Result[]{solvePartOne(), solvePartTwo()};
+    }
+
+    /**
+     * @return fresh answers for an empty input that can be updated a line at a time, or null if this solution can
+     * only be solved over the whole input
+     */
+    public RunningAnswers runningAnswers() {
+        return null;
+    }
+
+    /**
+     * Follow the input as it is appended to, reading only the new lines and updating both answers from them, see
+     * {@link InputWatcher}. Runs until the thread is interrupted.
+     * @param listener told the latest answers each time the new lines have been read
+     * @throws UnsupportedOperationException if this solution has no {@link #runningAnswers()}
+     * @throws IOException if the input cannot be read
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public void watch(Consumer<Result[]> listener) throws IOException, InterruptedException {
+        RunningAnswers first = runningAnswers();
+        if (first == null) {
+            throw new UnsupportedOperationException("Day " + day + " can only be solved over the whole input");
+        }
+        try (InputWatcher watcher = new InputWatcher(inputPath)) {
+            watcher.follow(new InputWatcher.Listener() {
+                private RunningAnswers answers = first;
+
+                @Override
+                public void accept(byte[] bytes, int start, int end) {
+                    answers.accept(bytes, start, end);
+                }
+
+                @Override
+                public void reset() {
+                    answers = runningAnswers();
+                }
+
+                @Override
+                public void caughtUp() {
+                    listener.accept(answers.answers());
+                }
+            });
+        }
+    }
 
-    public abstract void solvePartOne();
-    public abstract void solvePartTwo();
     public void solve() {
-        solvePartOne();
-        total = 0;
-        solvePartTwo();
+        if (FUSED) {
+            Result[] results = runBoth();
+            System.out.println("Final total ( part 1 ): " + results[0]);
+            System.out.println("Final total ( part 2 ): " + results[1]);
+            return;
+        }
+        System.out.println("Final total ( part 1 ): " + runPart(1));
+        System.out.println("Final total ( part 2 ): " + runPart(2));
     }
 
     public AdventOfCodeSolution(String day) {
-        input = getInput(System.getProperty("user.dir") + "/src/day/" + day + "/" + FILENAME);
+        this.day = day;
+        this.inputPath = Path.of(System.getProperty("user.dir"), "src", "day", day, FILENAME);
     }
 
-    public ArrayList<String> getInput(String filepath) {
-        File inputFile = new File(filepath);
-        try {
-            ArrayList<String> input = new ArrayList<>();
-            Scanner scan = new Scanner(inputFile);
-            while (scan.hasNextLine()) {
-                input.add(scan.nextLine());
+    public Path getInputPath() {
+        return inputPath;
+    }
+
+    /**
+     * Read the input from somewhere other than src/day/[day]/input.txt, i.e. a generated input
+     * @param inputPath the input file
+     * @throws IllegalStateException if the input has already been loaded or parsed
+     */
+    public synchronized void setInputPath(Path inputPath) {
+        if (loaded || mappedLoaded || model != null) {
+            throw new IllegalStateException("Input for day " + day + " has already been read from " + this.inputPath);
+        }
+        this.inputPath = inputPath;
+    }
+
+    /**
+     * Get the input, loading it if this is the first time it has been asked for.
+     * Loading is timed in {@link Metrics} and as a JFR event.
+     * @return the input as an arena, or null if it could not be read
+     */
+    public synchronized InputArena arena() {
+        if (!loaded) {
+            loaded = true;
+            PhaseRecorder phase = PhaseRecorder.begin(day, "load");
+            long start = System.nanoTime();
+            arena = getInput(inputPath.toString());
+            Metrics.INSTANCE.loadTime.record(System.nanoTime() - start);
+            if (arena != null) {
+                Metrics.INSTANCE.linesParsed.add(arena.lineCount());
+            }
+            phase.commit(arena == null ? 0 : arena.lineCount(), 0);
+        }
+        return arena;
+    }
+
+    /**
+     * @return true if both parts can be solved from a {@link #mapped()} input. Solutions that can override this, and
+     * check {@link #isMapped()} to decide which input to read.
+     */
+    protected boolean canMap() {
+        return false;
+    }
+
+    /**
+     * @return true if the input should be read with {@link #mapped()} rather than {@link #arena()}, see {@link #MAPPED}.
+     * Always false for solutions that {@link #canMap() can't} be solved from a mapped input.
+     */
+    public boolean isMapped() {
+        if (!canMap()) {
+            return false;
+        }
+        switch (MAPPED) {
+            case "true":
+                return true;
+            case "false":
+                return false;
+            default:
+                try {
+                    return Files.size(inputPath) > InputArena.MAX_SIZE;
+                } catch (IOException e) {
+                    return false;
+                }
+        }
+    }
+
+    /**
+     * Get the input mapped into memory, mapping it if this is the first time it has been asked for. Solutions use
+     * this instead of {@link #arena()} when {@link #isMapped()}, so inputs of any size can be solved with a small heap.
+     * Mapping is timed in {@link Metrics} and as a JFR event.
+     * @return the mapped input, or null if it could not be mapped
+     */
+    public synchronized MappedInput mapped() {
+        if (!mappedLoaded) {
+            mappedLoaded = true;
+            PhaseRecorder phase = PhaseRecorder.begin(day, "load");
+            long start = System.nanoTime();
+            try {
+                mapped = MappedInput.map(inputPath);
+            } catch (IOException e) {
+                System.out.println(String.format(FILE_OPERATIONS_ERROR_MSG, e.getMessage()));
             }
-            return input;
+            Metrics.INSTANCE.loadTime.record(System.nanoTime() - start);
+            phase.commit(0, 0);
+        }
+        return mapped;
+    }
+
+    /**
+     * Solve every line of the input in parallel, reading it from the mapped input or the arena as {@link #isMapped()}
+     * says
+     * @param solver works out the value of each line
+     * @return all line values combined
+     */
+    protected long solveEveryLine(LineSolver solver) {
+        return isMapped() ? solver.solve(mapped()) : solver.solve(arena());
+    }
+
+    /**
+     * Get the parsed input, parsing it if this is the first time it has been asked for.
+     * The model is read from the {@link ModelCache} instead if the solution has a codec and the input is unchanged.
+     * Parsing is timed in {@link Metrics} and as a JFR event.
+     * @return the model both parts are solved from
+     */
+    public synchronized M model() {
+        if (model == null) {
+            PhaseRecorder phase = PhaseRecorder.begin(day, "parse");
+            long start = System.nanoTime();
+            ModelCache.Codec<M> codec = CACHE ? codec() : null;
+            model = codec == null ? parse() : ModelCache.load(inputPath, codec, this::parse);
+            Metrics.INSTANCE.parseTime.record(System.nanoTime() - start);
+            phase.commit(arena == null ? 0 : arena.lineCount(), 0);
+        }
+        return model;
+    }
+
+    /**
+     * Solve one part, recording how long it took in {@link Metrics} and as a JFR event.
+     * @param part 1 or 2
+     * @return the answer to that part
+     */
+    public Result runPart(int part) {
+        PhaseRecorder phase = PhaseRecorder.begin(day, part == 1 ? "part 1" : "part 2");
+        long start = System.nanoTime();
+        Result result = part == 1 ? solvePartOne() : solvePartTwo();
+        Metrics.INSTANCE.solveTime.record(System.nanoTime() - start);
+        phase.commit(0, result.get());
+        return result;
+    }
+
+    /**
+     * Solve both parts with {@link #solveBoth()}, recording how long it took in {@link Metrics} and as a JFR event.
+     * @return the answers to part one and part two, in that order
+     */
+    public Result[] runBoth() {
+        PhaseRecorder phase = PhaseRecorder.begin(day, "both");
+        long start = System.nanoTime();
+        Result[] results = solveBoth();
+        Metrics.INSTANCE.solveTime.record(System.nanoTime() - start);
+        phase.commit(0, results[0].get());
+        return results;
+    }
+
+    /**
+     * Read the input file into a compact byte arena. Lines are only turned into Strings if a solution asks for them.
+     * @param filepath path to the input file
+     * @return the input as an arena, or null if it could not be read
+     */
+    public InputArena getInput(String filepath) {
+        try {
+            return InputArena.read(Path.of(filepath));
         } catch (IOException e) {
             System.out.println(String.format(FILE_OPERATIONS_ERROR_MSG, e.getMessage()));
         }
@@ -42,25 +297,58 @@ public abstract class AdventOfCodeSolution {
     }
 
     /**
-     * Turns on debug logging for visibility into what code is doing.
-     * @param msg
+     * Parallel work is run on the pool of the thread asking for it, so a day run as a task on its own pool by
+     * {@link AdventOfCodeRunner} keeps every worker it uses to itself.
+     * @return the fork-join pool the current thread works for, or the common pool if it isn't a fork-join worker
      */
-    public static void debugLog(String msg) {
-        if (DEBUG_FLAG) {
-            System.out.println(String.format("DEBUG: %s", msg));
+    public static ForkJoinPool currentPool() {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        return pool == null ? ForkJoinPool.commonPool() : pool;
+    }
+
+    /**
+     * @param level a log level's name, in any case
+     * @return that level, or OFF with a warning if there is no such level, so a typo never stops a solution loading
+     */
+    static LogLevel parseLogLevel(String level) {
+        try {
+            return LogLevel.valueOf(level.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log level '" + level + "', expected one of " + Arrays.toString(LogLevel.values()) + ". Logging is off.");
+            return LogLevel.OFF;
         }
     }
 
-    public static void addTotal(int value) {
-        total += value;
+    public static void setLogLevel(LogLevel level) {
+        logLevel = level;
     }
 
-    protected static int getTotal() {
-        return total;
+    /**
+     * @return true if debug logging is on. Messages that cost something to build can go to {@link #debugLog(Supplier)}
+     * instead of checking this first.
+     */
+    public static boolean isDebugEnabled() {
+        return logLevel == LogLevel.DEBUG;
     }
 
-    protected static void printTotal() {
-        System.out.println("Final total: " + getTotal());
+    /**
+     * Debug logging for visibility into what code is doing. Does nothing unless the log level is DEBUG.
+     * @param msg
+     */
+    public static void debugLog(String msg) {
+        if (isDebugEnabled()) {
+            System.out.println("DEBUG: " + msg);
+        }
+    }
+
+    /**
+     * Debug logging for messages that cost something to build. The message is only built if the log level is DEBUG.
+     * @param msg builds the message
+     */
+    public static void debugLog(Supplier<String> msg) {
+        if (isDebugEnabled()) {
+            System.out.println("DEBUG: " + msg.get());
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,261 @@
+package day;
+
+/**
+ * Reads tokens from a line of bytes, i.e. 'Card 12: 41 48 | 83 86', by moving a position along it. Numbers are
+ * built straight from the digits and words are left in place as a start and end in the array, so reading a token
+ * allocates nothing. A cursor can be pointed at another line with {@link #reset(byte[], int, int)} and reused.
+ */
+public final class ByteCursor {
+
+    private byte[] bytes;
+    private int start, end, position;
+    private int tokenStart, tokenEnd;
+
+    public ByteCursor() {
+        this(new byte[0], 0, 0);
+    }
+
+    /**
+     * @param bytes array holding the line
+     * @param start index of the first byte of the line
+     * @param end index just past the last byte of the line
+     */
+    public ByteCursor(byte[] bytes, int start, int end) {
+        reset(bytes, start, end);
+    }
+
+    /**
+     * Move the cursor to the start of another line
+     * @return this cursor
+     */
+    public ByteCursor reset(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        this.start = start;
+        this.end = end;
+        this.position = start;
+        this.tokenStart = this.tokenEnd = start;
+        return this;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public boolean hasNext() {
+        return position < end;
+    }
+
+    /**
+     * @return the byte at the cursor, or 0 at the end of the line
+     */
+    public byte peek() {
+        return position < end ? bytes[position] : 0;
+    }
+
+    /**
+     * Move to the next occurrence of a byte, leaving the cursor on it
+     * @return true if it was found. False if the cursor reached the end of the line instead.
+     */
+    public boolean skipUntil(char c) {
+        byte[] bytes = this.bytes;
+        int i = position;
+        while (i < end && bytes[i] != c) {
+            i++;
+        }
+        position = i;
+        return i < end;
+    }
+
+    /**
+     * Move to the next digit, skipping anything else
+     * @return true if a digit was found. False if the cursor reached the end of the line instead.
+     */
+    public boolean skipUntilDigit() {
+        byte[] bytes = this.bytes;
+        int i = position;
+        while (i < end && !isDigit(bytes[i])) {
+            i++;
+        }
+        position = i;
+        return i < end;
+    }
+
+    /**
+     * @return this cursor, moved past any spaces
+     */
+    public ByteCursor skipSpaces() {
+        byte[] bytes = this.bytes;
+        int i = position;
+        while (i < end && bytes[i] == ' ') {
+            i++;
+        }
+        position = i;
+        return this;
+    }
+
+    /**
+     * Step over one byte, which must be the given one
+     * @return this cursor
+     * @throws IllegalArgumentException if the line has something else at the cursor
+     */
+    public ByteCursor expect(char c) {
+        if (position >= end || bytes[position] != c) {
+            throw unexpected("'" + c + "'");
+        }
+        position++;
+        return this;
+    }
+
+    /**
+     * Step over some text, which must be at the cursor
+     * @param text ASCII text expected next in the line
+     * @return this cursor
+     * @throws IllegalArgumentException if the line has something else at the cursor
+     */
+    public ByteCursor expect(String text) {
+        if (end - position < text.length()) {
+            throw unexpected("'" + text + "'");
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (bytes[position + i] != text.charAt(i)) {
+                throw unexpected("'" + text + "'");
+            }
+        }
+        position += text.length();
+        return this;
+    }
+
+    /**
+     * Read the number at the cursor
+     * @return its value
+     * @throws IllegalArgumentException if there is no digit at the cursor, or the number doesn't fit in an int
+     */
+    public int readInt() {
+        byte[] bytes = this.bytes;
+        int from = position, i = from;
+        int value = 0;
+        while (i < end && isDigit(bytes[i])) {
+            value = value * 10 + (bytes[i++] - '0');
+        }
+        // nine digits always fit, so only longer numbers need checking for overflow
+        if (i - from > 9 || i == from) {
+            long exact = readLong();
+            if (exact > Integer.MAX_VALUE) {
+                position = from;
+                throw new IllegalArgumentException("Number too large for an int at column " + column() + " of: " + this);
+            }
+            return (int) exact;
+        }
+        position = i;
+        return value;
+    }
+
+    /**
+     * Read the number at the cursor
+     * @return its value
+     * @throws IllegalArgumentException if there is no digit at the cursor, or the number doesn't fit in a long
+     */
+    public long readLong() {
+        byte[] bytes = this.bytes;
+        int from = position, i = from;
+        long value = 0;
+        while (i < end && isDigit(bytes[i])) {
+            value = value * 10 + (bytes[i++] - '0');
+        }
+        position = i;
+        if (i == from) {
+            throw unexpected("a number");
+        }
+        // eighteen digits always fit, so only longer numbers need checking for overflow
+        if (i - from > 18) {
+            value = 0;
+            for (int digit = from; digit < i; digit++) {
+                try {
+                    value = Math.addExact(Math.multiplyExact(value, 10), bytes[digit] - '0');
+                } catch (ArithmeticException e) {
+                    position = from;
+                    throw new IllegalArgumentException("Number too large for a long at column " + column() + " of: " + this);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Skip any spaces, then read the run of letters that follows. The word is left in the line, see
+     * {@link #tokenStart()}, {@link #tokenEnd()} and {@link #tokenEquals(String)}.
+     * @return length of the word, 0 if there are no letters at the cursor
+     */
+    public int nextWord() {
+        skipSpaces();
+        byte[] bytes = this.bytes;
+        int i = position;
+        while (i < end && isLetter(bytes[i])) {
+            i++;
+        }
+        tokenStart = position;
+        tokenEnd = position = i;
+        return i - tokenStart;
+    }
+
+    /**
+     * @return index of the first byte of the last word read
+     */
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    /**
+     * @return index just past the last byte of the last word read
+     */
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    /**
+     * @return the first byte of the last word read, or 0 if it was empty
+     */
+    public byte tokenFirst() {
+        return tokenEnd > tokenStart ? bytes[tokenStart] : 0;
+    }
+
+    /**
+     * @param text ASCII text to compare with
+     * @return true if the last word read is exactly that text
+     */
+    public boolean tokenEquals(String text) {
+        if (tokenEnd - tokenStart != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (bytes[tokenStart + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the whole line, for error messages
+     */
+    @Override
+    public String toString() {
+        return new InputArena.Line(bytes, start, end).toString();
+    }
+
+    public static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private int column() {
+        return position - start + 1;
+    }
+
+    private IllegalArgumentException unexpected(String expected) {
+        return new IllegalArgumentException("Expected " + expected + " at column " + column() + " of: " + this);
+    }
+}
@@ -0,0 +1,182 @@
+package day;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds an entire input file as one Latin-1 byte array, along with an index of where each line starts.
+ * Lines can be read straight out of the array, so solutions never need to create a String per line.
+ */
+public class InputArena {
+
+    /** Most bytes an arena can hold, since it is a single array. Larger inputs can be read as a {@link MappedInput}. */
+    public static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    private final byte[] bytes;
+    private final int length;
+    private final int[] lineStarts;
+    private final int lineCount;
+
+    /**
+     * Build an arena over the given bytes. The array is not copied.
+     * @param bytes raw contents of an input file
+     * @param length number of bytes in the array that are actually in use
+     */
+    public InputArena(byte[] bytes, int length) {
+        this.bytes = bytes;
+        this.length = length;
+        int[] starts = new int[64];
+        int count = 0;
+        int position = 0;
+        while (position < length) {
+            if (count + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[count++] = position;
+            while (position < length && bytes[position] != '\n') {
+                position++;
+            }
+            position++;
+        }
+        starts[count] = Math.min(position, length);
+        this.lineStarts = starts;
+        this.lineCount = count;
+    }
+
+    /**
+     * Read a whole file into an arena.
+     * @param path the file to read
+     * @return an arena holding the file contents
+     * @throws IOException if the file cannot be read, or is larger than {@link #MAX_SIZE}
+     */
+    public static InputArena read(Path path) throws IOException {
+        long size = Files.size(path);
+        if (size > MAX_SIZE) {
+            throw new IOException(path + " is " + size + " bytes, more than an arena can hold");
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        return new InputArena(bytes, bytes.length);
+    }
+
+    /**
+     * @return the backing array. Only the first {@link #size()} bytes belong to the input.
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return number of bytes of input held in the arena
+     */
+    public int size() {
+        return length;
+    }
+
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @param line index of the line
+     * @return offset into {@link #bytes()} of the first byte of the line
+     */
+    public int lineStart(int line) {
+        return lineStarts[line];
+    }
+
+    /**
+     * @param line index of the line
+     * @return offset into {@link #bytes()} just past the last byte of the line, excluding any line terminator
+     */
+    public int lineEnd(int line) {
+        int start = lineStarts[line];
+        int end = lineStarts[line + 1];
+        if (end > start && bytes[end - 1] == '\n') {
+            end--;
+        }
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Get a view of a single line. The view reads from the arena directly and does not copy any bytes.
+     * @param line index of the line
+     * @return the line as a CharSequence
+     */
+    public Line line(int line) {
+        return new Line(bytes, lineStart(line), lineEnd(line));
+    }
+
+    /**
+     * Materialise a single line as a String.
+     * @param line index of the line
+     * @return a new String holding the line
+     */
+    public String lineAsString(int line) {
+        int start = lineStart(line);
+        return new String(bytes, start, lineEnd(line) - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * View the arena as a list of Strings for code that still works line by line on Strings.
+     * Each String is created when it is asked for, so the arena itself stays compact.
+     * @return a read-only list of the lines in this arena
+     */
+    public List<String> asStrings() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                if (index < 0 || index >= lineCount) {
+                    throw new IndexOutOfBoundsException("Line " + index + " is out of range for " + lineCount + " lines");
+                }
+                return lineAsString(index);
+            }
+
+            @Override
+            public int size() {
+                return lineCount;
+            }
+        };
+    }
+
+    /**
+     * A zero-copy view of a line held in an arena.
+     */
+    public static class Line implements CharSequence {
+        private final byte[] bytes;
+        private final int start, end;
+
+        public Line(byte[] bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[start + index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new Line(bytes, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
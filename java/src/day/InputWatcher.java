@@ -0,0 +1,142 @@
+package day;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Follows a file that is only ever appended to, like a log, handing over each line once it is complete.
+ * Only the bytes past the last offset read are read again, so keeping up with a write costs as much as the write.
+ * A line without a line break yet is held back until the rest of it is written.
+ * If the file gets shorter or is replaced by another file, it is read again from the start.
+ */
+public class InputWatcher implements AutoCloseable {
+
+    /**
+     * Receives lines as they are appended
+     */
+    public interface Listener extends LineReader.LineConsumer {
+        /**
+         * The file was truncated or replaced, so every line is about to be handed over again from the start
+         */
+        void reset();
+
+        /**
+         * Every complete line written so far has been handed over
+         */
+        void caughtUp();
+    }
+
+    /**
+     * The file is checked this often even without a change event, since some platforms only poll for changes
+     * every few seconds, and events can be lost when the watch service overflows
+     */
+    static final long CHECK_MILLIS = 250;
+
+    private final Path file;
+    private final WatchService watchService;
+    private final byte[] chunk = new byte[LineReader.BUFFER_SIZE];
+    private LineReader reader = new LineReader();
+    private Object fileKey;
+    private long offset;
+
+    /**
+     * @param file the file to follow. It does not have to exist yet, but the directory it is in does.
+     * @throws IOException if the directory cannot be watched
+     */
+    public InputWatcher(Path file) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+    }
+
+    /**
+     * Hand over every line appended since the last check
+     * @param listener receives each new line, then is told it has caught up
+     * @return true if any new lines were completed, or the file was read again from the start
+     * @throws IOException if the file cannot be read
+     */
+    public boolean check(Listener listener) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // in the middle of being replaced, so wait for the new file to show up
+            return false;
+        }
+        boolean reset = false;
+        if (attributes.size() < offset || !Objects.equals(attributes.fileKey(), fileKey)) {
+            if (offset > 0) {
+                listener.reset();
+                reset = true;
+            }
+            fileKey = attributes.fileKey();
+            offset = 0;
+            reader = new LineReader();
+        }
+        if (attributes.size() == offset && !reset) {
+            return false;
+        }
+        long[] lines = new long[1];
+        LineReader.LineConsumer counted = (bytes, start, end) -> {
+            lines[0]++;
+            listener.accept(bytes, start, end);
+        };
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(offset);
+            ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            int read;
+            while ((read = channel.read(buffer.clear())) > 0) {
+                reader.accept(chunk, 0, read, counted);
+                offset += read;
+            }
+        }
+        // only the start of a line was written, so nothing has changed yet
+        if (lines[0] == 0 && !reset) {
+            return false;
+        }
+        listener.caughtUp();
+        return true;
+    }
+
+    /**
+     * Hand over every line already in the file, then every line appended to it, until closed or interrupted
+     * @param listener receives each line, and is told each time it has caught up with the file
+     * @throws IOException if the file cannot be read
+     * @throws InterruptedException if the thread is interrupted while waiting for the file to change
+     */
+    public void follow(Listener listener) throws IOException, InterruptedException {
+        check(listener);
+        try {
+            while (true) {
+                WatchKey key = watchService.poll(CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    // events for other files in the directory are rare enough that checking the file anyway is simpler
+                    key.pollEvents();
+                    key.reset();
+                }
+                check(listener);
+            }
+        } catch (ClosedWatchServiceException e) {
+            // closed from another thread, so stop following
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
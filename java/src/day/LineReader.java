@@ -0,0 +1,87 @@
+package day;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads lines from a stream of Latin-1 bytes and hands each one over without creating a String for it.
+ * Only a buffer big enough for the longest line is ever held, so the stream can be any length.
+ */
+public class LineReader {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives lines as they are read
+     */
+    @FunctionalInterface
+    public interface LineConsumer {
+        /**
+         * @param bytes array holding the line. Only valid until this method returns.
+         * @param start index of the first byte of the line
+         * @param end index just past the last byte of the line, excluding any line terminator
+         */
+        void accept(byte[] bytes, int start, int end);
+    }
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int length = 0;
+
+    /**
+     * Hand over every complete line in the given bytes, keeping any unfinished line until more bytes arrive.
+     * @param bytes bytes just read
+     * @param offset index of the first new byte
+     * @param count how many new bytes there are
+     * @param consumer receives each complete line
+     */
+    public void accept(byte[] bytes, int offset, int count, LineConsumer consumer) {
+        if (length + count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+        }
+        System.arraycopy(bytes, offset, buffer, length, count);
+        int scanFrom = length;
+        length += count;
+
+        int lineStart = 0;
+        for (int i = scanFrom; i < length; i++) {
+            if (buffer[i] == '\n') {
+                consumer.accept(buffer, lineStart, lineEnd(lineStart, i));
+                lineStart = i + 1;
+            }
+        }
+        length -= lineStart;
+        System.arraycopy(buffer, lineStart, buffer, 0, length);
+    }
+
+    /**
+     * Hand over the last line if the input did not end with a line break
+     * @param consumer receives the line
+     */
+    public void finish(LineConsumer consumer) {
+        if (length > 0) {
+            consumer.accept(buffer, 0, lineEnd(0, length));
+            length = 0;
+        }
+    }
+
+    /**
+     * Read a stream to the end, handing over each line as it is read
+     * @param in the stream to read. It is not closed.
+     * @param consumer receives each line
+     * @throws IOException if the stream cannot be read
+     */
+    public static void read(InputStream in, LineConsumer consumer) throws IOException {
+        LineReader reader = new LineReader();
+        byte[] chunk = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            reader.accept(chunk, 0, read, consumer);
+        }
+        reader.finish(consumer);
+    }
+
+    private int lineEnd(int start, int end) {
+        return end > start && buffer[end - 1] == '\r' ? end - 1 : end;
+    }
+}
@@ -0,0 +1,203 @@
+package day;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A solution that maps each line of input to a number and then combines all the numbers into an answer.
+ * Lines are handed out in chunks to a fork-join pool, so implementations must be safe to call from many threads.
+ */
+@FunctionalInterface
+public interface LineSolver {
+
+    /**
+     * Work out the value of a single line.
+     * @param bytes array holding the line as Latin-1 bytes
+     * @param start index of the first byte of the line
+     * @param end index just past the last byte of the line, excluding any line terminator
+     * @return the value of this line
+     */
+    long solveLine(byte[] bytes, int start, int end);
+
+    /**
+     * Work out the combined value of every line in a range of whole lines. Calls {@link #solveLine} for each line by
+     * default, but solvers that can work on many lines at once, i.e. with vector instructions, override this.
+     * @param bytes array holding the lines as Latin-1 bytes
+     * @param from index of the first byte of the first line
+     * @param to index just past the last line, either its line break or the end of the input
+     * @return the values of the lines combined
+     */
+    default long solveLines(byte[] bytes, int from, int to) {
+        long total = identity();
+        int start = from;
+        while (start < to) {
+            int next = start;
+            while (next < to && bytes[next] != '\n') {
+                next++;
+            }
+            int end = next;
+            if (end > start && bytes[end - 1] == '\r') {
+                end--;
+            }
+            total = combine(total, solveLine(bytes, start, end));
+            start = next + 1;
+        }
+        return total;
+    }
+
+    /**
+     * Combine the values of two lines or groups of lines. Must be associative. Adds them by default.
+     */
+    default long combine(long a, long b) {
+        return a + b;
+    }
+
+    /**
+     * @return the value of an empty input, such that combine(identity(), x) == x
+     */
+    default long identity() {
+        return 0;
+    }
+
+    /**
+     * Solve every line of the input on the current fork-join pool, see {@link AdventOfCodeSolution#currentPool()}
+     * @param input the input to solve
+     * @return all line values combined
+     */
+    default long solve(InputArena input) {
+        return solve(input, AdventOfCodeSolution.currentPool());
+    }
+
+    /**
+     * Solve every line of the input on the given fork-join pool
+     * @param input the input to solve
+     * @param pool the pool to run on
+     * @return all line values combined
+     */
+    default long solve(InputArena input, ForkJoinPool pool) {
+        return pool.invoke(new LineSolverTask(this, input.bytes(), 0, input.size()));
+    }
+
+    /**
+     * Solve every line of a mapped input on the current fork-join pool, see {@link AdventOfCodeSolution#currentPool()}
+     * @param input the input to solve
+     * @return all line values combined
+     */
+    default long solve(MappedInput input) {
+        return solve(input, AdventOfCodeSolution.currentPool());
+    }
+
+    /**
+     * Solve every line of a mapped input on the given fork-join pool. Each worker copies a chunk of whole lines at a
+     * time into its own scratch array and solves it with {@link #solveLines}, so the heap stays the same size
+     * however large the input is.
+     * @param input the input to solve
+     * @param pool the pool to run on
+     * @return all line values combined
+     */
+    default long solve(MappedInput input, ForkJoinPool pool) {
+        return pool.invoke(new MappedLineSolverTask(this, input, 0, input.size()));
+    }
+}
+
+/**
+ * Solves a range of bytes holding whole lines. Large ranges are split in two at a line break and solved in parallel,
+ * small ones are solved in place with a local total, so workers never share an accumulator.
+ */
+class LineSolverTask extends RecursiveTask<Long> {
+
+    /** Ranges smaller than this are not worth splitting any further */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final LineSolver solver;
+    private final byte[] bytes;
+    private final int from, to;
+
+    LineSolverTask(LineSolver solver, byte[] bytes, int from, int to) {
+        this.solver = solver;
+        this.bytes = bytes;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected Long compute() {
+        if (to - from > CHUNK_SIZE) {
+            int middle = nextLineStart(from + (to - from) / 2);
+            if (middle >= to) {
+                // the second half is all one line, so split it off at the first line break instead
+                middle = nextLineStart(from + 1);
+            }
+            if (middle < to) {
+                LineSolverTask left = new LineSolverTask(solver, bytes, from, middle);
+                LineSolverTask right = new LineSolverTask(solver, bytes, middle, to);
+                left.fork();
+                long rightTotal = right.compute();
+                return solver.combine(left.join(), rightTotal);
+            }
+        }
+        return solver.solveLines(bytes, from, to);
+    }
+
+    /**
+     * @param index where to start looking
+     * @return the start of the first line beginning at or after the index, or the end of the range if there is none
+     */
+    private int nextLineStart(int index) {
+        while (index < to && bytes[index - 1] != '\n') {
+            index++;
+        }
+        return index;
+    }
+}
+
+/**
+ * Solves a range of a mapped input holding whole lines, splitting it at line breaks like {@link LineSolverTask}.
+ * Ranges are indexed with longs, and each small range is copied into the worker's scratch array before it is solved.
+ */
+class MappedLineSolverTask extends RecursiveTask<Long> {
+
+    /** Ranges smaller than this are not worth splitting any further, and are copied onto the heap in one go */
+    static final int CHUNK_SIZE = 1024 * 1024;
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[CHUNK_SIZE]);
+
+    private final LineSolver solver;
+    private final MappedInput input;
+    private final long from, to;
+
+    MappedLineSolverTask(LineSolver solver, MappedInput input, long from, long to) {
+        this.solver = solver;
+        this.input = input;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected Long compute() {
+        if (to - from > CHUNK_SIZE) {
+            long middle = input.nextLineStart(from + (to - from) / 2 - 1);
+            if (middle >= to) {
+                // the second half is all one line, so split it off at the first line break instead
+                middle = input.nextLineStart(from);
+            }
+            if (middle < to) {
+                MappedLineSolverTask left = new MappedLineSolverTask(solver, input, from, middle);
+                MappedLineSolverTask right = new MappedLineSolverTask(solver, input, middle, to);
+                left.fork();
+                long rightTotal = right.compute();
+                return solver.combine(left.join(), rightTotal);
+            }
+        }
+        // a range only stays larger than a chunk if it is a single very long line
+        byte[] scratch = SCRATCH.get();
+        if (scratch.length < to - from) {
+            if (to - from > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Line at offset " + from + " is too long to solve");
+            }
+            scratch = new byte[(int) (to - from)];
+            SCRATCH.set(scratch);
+        }
+        input.copy(from, to, scratch);
+        return solver.solveLines(scratch, 0, (int) (to - from));
+    }
+}
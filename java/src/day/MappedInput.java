@@ -0,0 +1,108 @@
+package day;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Holds an input file mapped into memory rather than read onto the heap, for inputs larger than an
+ * {@link InputArena} can hold. A single buffer can only map 2GB, so the file is mapped as a run of segments and read
+ * with long offsets. The heap only ever holds the small buffer objects, whatever the size of the file.
+ * Lines are read by copying a stretch of whole lines into a scratch array, see {@link #copy(long, long, byte[])}, so
+ * the same line code works on both.
+ */
+public final class MappedInput {
+
+    /** Bytes per mapped segment. A power of two, so finding a segment is a shift. */
+    static final int SEGMENT_SHIFT = 30;
+    static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    private MappedInput(MappedByteBuffer[] segments, long size) {
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * Map a whole file. The mapping stays valid after this returns and is released once the input is unreachable.
+     * @param path the file to map
+     * @return the mapped file
+     * @throws IOException if the file cannot be mapped
+     */
+    public static MappedInput map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+            }
+            return new MappedInput(segments, size);
+        }
+    }
+
+    /**
+     * @return number of bytes in the file
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @param position offset into the file
+     * @return the byte at that offset
+     */
+    public byte get(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    /**
+     * Find where the line after a position starts
+     * @param position offset into the file
+     * @return offset just past the first line break at or after the position, or the size of the file if there is none
+     */
+    public long nextLineStart(long position) {
+        while (position < size && get(position) != '\n') {
+            position++;
+        }
+        return Math.min(position + 1, size);
+    }
+
+    /**
+     * Copy a stretch of the file onto the heap
+     * @param from offset of the first byte to copy
+     * @param to offset just past the last byte to copy, at most {@code from + scratch.length}
+     * @param scratch array to copy into, starting at index 0
+     */
+    public void copy(long from, long to, byte[] scratch) {
+        int copied = 0;
+        while (from < to) {
+            MappedByteBuffer segment = segments[(int) (from >>> SEGMENT_SHIFT)];
+            int offset = (int) (from & (SEGMENT_SIZE - 1));
+            int count = (int) Math.min(to - from, segment.limit() - offset);
+            segment.get(offset, scratch, copied, count);
+            copied += count;
+            from += count;
+        }
+    }
+
+    /**
+     * Hand over every line in the file in order, on this thread. Lines are copied a chunk at a time into one scratch
+     * array, which only grows if a single line is longer than it.
+     * @param consumer receives each line
+     */
+    public void forEachLine(LineReader.LineConsumer consumer) {
+        LineReader reader = new LineReader();
+        byte[] chunk = new byte[LineReader.BUFFER_SIZE];
+        for (long position = 0; position < size; position += chunk.length) {
+            long end = Math.min(position + chunk.length, size);
+            copy(position, end, chunk);
+            reader.accept(chunk, 0, (int) (end - position), consumer);
+        }
+        reader.finish(consumer);
+    }
+}
@@ -0,0 +1,200 @@
+package day;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for every solution run in this JVM. Recording is a few uncontended adds,
+ * so it is always on. Read them over JMX (i.e. with jconsole) rather than printing them.
+ * Neither JMX nor JFR is paid for at startup unless asked for: JMX can be turned off with {@link #JMX}, and phase
+ * events are only created while a flight recording is running, see {@link PhaseRecorder}.
+ */
+public class Metrics implements MetricsMXBean {
+
+    public static final Metrics INSTANCE = new Metrics();
+    static final String OBJECT_NAME = "day:type=Metrics";
+    /** Set with -Daoc.jmx=false to skip JMX. Starting the platform MBean server is most of a short run's startup time. */
+    static final boolean JMX = !"false".equals(System.getProperty("aoc.jmx"));
+
+    public final LongAdder linesParsed = new LongAdder();
+    public final LongAdder partsFound = new LongAdder();
+    /** Reading or mapping an input file */
+    public final LatencyHistogram loadTime = new LatencyHistogram();
+    /** Turning a loaded input into a model, or reading the model from the cache */
+    public final LatencyHistogram parseTime = new LatencyHistogram();
+    public final LatencyHistogram solveTime = new LatencyHistogram();
+
+    static {
+        if (JMX) {
+            register();
+        }
+    }
+
+    private static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.out.println("Unable to register metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    private Metrics() {
+    }
+
+    @Override
+    public long getLinesParsed() {
+        return linesParsed.sum();
+    }
+
+    @Override
+    public long getPartsFound() {
+        return partsFound.sum();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadTime.count();
+    }
+
+    @Override
+    public long getLoadTotalNanos() {
+        return loadTime.total();
+    }
+
+    @Override
+    public long getLoadMaxNanos() {
+        return loadTime.max();
+    }
+
+    @Override
+    public long getLoadP50Nanos() {
+        return loadTime.percentile(0.5);
+    }
+
+    @Override
+    public long getLoadP99Nanos() {
+        return loadTime.percentile(0.99);
+    }
+
+    @Override
+    public long getParseCount() {
+        return parseTime.count();
+    }
+
+    @Override
+    public long getParseTotalNanos() {
+        return parseTime.total();
+    }
+
+    @Override
+    public long getParseMaxNanos() {
+        return parseTime.max();
+    }
+
+    @Override
+    public long getParseP50Nanos() {
+        return parseTime.percentile(0.5);
+    }
+
+    @Override
+    public long getParseP99Nanos() {
+        return parseTime.percentile(0.99);
+    }
+
+    @Override
+    public long getSolveCount() {
+        return solveTime.count();
+    }
+
+    @Override
+    public long getSolveTotalNanos() {
+        return solveTime.total();
+    }
+
+    @Override
+    public long getSolveMaxNanos() {
+        return solveTime.max();
+    }
+
+    @Override
+    public long getSolveP50Nanos() {
+        return solveTime.percentile(0.5);
+    }
+
+    @Override
+    public long getSolveP99Nanos() {
+        return solveTime.percentile(0.99);
+    }
+
+    @Override
+    public void reset() {
+        linesParsed.reset();
+        partsFound.reset();
+        loadTime.reset();
+        parseTime.reset();
+        solveTime.reset();
+    }
+
+    /**
+     * A histogram of durations in power of two buckets: bucket i holds durations below 2^i nanoseconds.
+     */
+    public static class LatencyHistogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        /**
+         * @param nanos a duration to record
+         */
+        public void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+            total.add(value);
+            max.accumulate(value);
+        }
+
+        long count() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        long total() {
+            return total.sum();
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        /**
+         * @param fraction between 0 and 1, i.e. 0.99
+         * @return upper bound of the bucket the percentile falls in, or 0 if nothing has been recorded
+         */
+        long percentile(double fraction) {
+            long rank = (long) Math.ceil(count() * fraction);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    return i >= 63 ? Long.MAX_VALUE : 1L << i;
+                }
+            }
+            return 0;
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            total.reset();
+            max.reset();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package day;
+
+/**
+ * What {@link Metrics} exposes over JMX, under the name 'day:type=Metrics'.
+ * Times are in nanoseconds. Percentiles are the upper bound of the power of two bucket they fall in.
+ */
+public interface MetricsMXBean {
+
+    long getLinesParsed();
+
+    long getPartsFound();
+
+    long getLoadCount();
+
+    long getLoadTotalNanos();
+
+    long getLoadMaxNanos();
+
+    long getLoadP50Nanos();
+
+    long getLoadP99Nanos();
+
+    long getParseCount();
+
+    long getParseTotalNanos();
+
+    long getParseMaxNanos();
+
+    long getParseP50Nanos();
+
+    long getParseP99Nanos();
+
+    long getSolveCount();
+
+    long getSolveTotalNanos();
+
+    long getSolveMaxNanos();
+
+    long getSolveP50Nanos();
+
+    long getSolveP99Nanos();
+
+    /**
+     * Clear every counter and histogram
+     */
+    void reset();
+}
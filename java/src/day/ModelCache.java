@@ -0,0 +1,203 @@
+package day;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Saves parsed models to a binary file next to the input they came from, so later runs can skip parsing.
+ * A cache file starts with a header holding a magic number, the cache format and model versions, and the length and
+ * CRC32C of the input. If any of those don't match, the input is parsed again and the cache is rewritten.
+ * The cache is memory-mapped when read, so loading a model is little more than copying its arrays out of the file.
+ */
+public class ModelCache {
+
+    /** 'AOCC' */
+    static final int MAGIC = 0x414F4343;
+    static final int FORMAT_VERSION = 1;
+    static final String SUFFIX = ".cache";
+    static final String CACHE_ERROR_MSG = "Unable to use model cache %s. Exception message: %s";
+    /** Inputs are hashed in slices of this many bytes, since a single mapping can't be larger than 2GB */
+    static final long HASH_SLICE = 1L << 30;
+
+    /**
+     * Writes a model to a cache file and reads it back
+     * @param <M> the model
+     */
+    public interface Codec<M> {
+        /**
+         * @return version of the model's layout. Bump it whenever {@link #write} changes, so old caches are ignored.
+         */
+        int version();
+
+        void write(M model, DataOutputStream out) throws IOException;
+
+        /**
+         * @param in the bytes written by {@link #write}, positioned at the start of the model
+         * @return the model
+         */
+        M read(ByteBuffer in);
+    }
+
+    /**
+     * Load a model from the cache next to the input, or parse it and save it to the cache if there isn't a
+     * cache for the input as it is now. Problems with the cache are reported and the model is parsed instead.
+     * @param input the input file the model is parsed from
+     * @param codec how the model is saved
+     * @param parser parses the input into a model
+     * @return the model
+     */
+    public static <M> M load(Path input, Codec<M> codec, Supplier<M> parser) {
+        Path cache = cacheFile(input);
+        long length, hash;
+        try {
+            length = Files.size(input);
+            hash = hash(input);
+        } catch (IOException e) {
+            return parser.get();
+        }
+        try {
+            M model = read(cache, codec, length, hash);
+            if (model != null) {
+                return model;
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println(String.format(CACHE_ERROR_MSG, cache, e.getMessage()));
+        }
+        M model = parser.get();
+        try {
+            write(cache, codec, model, length, hash);
+        } catch (IOException e) {
+            System.out.println(String.format(CACHE_ERROR_MSG, cache, e.getMessage()));
+        }
+        return model;
+    }
+
+    public static Path cacheFile(Path input) {
+        return input.resolveSibling(input.getFileName() + SUFFIX);
+    }
+
+    /**
+     * @return CRC32C of the whole file, read through memory mappings
+     */
+    static long hash(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += HASH_SLICE) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(HASH_SLICE, size - position)));
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * @return the cached model, or null if there is no cache or it was made from a different input or version
+     */
+    static <M> M read(Path cache, Codec<M> codec, long length, long hash) throws IOException {
+        if (!Files.isRegularFile(cache)) {
+            return null;
+        }
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.remaining() < 32 || in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION || in.getInt() != codec.version()
+                || in.getInt() != 0 || in.getLong() != length || in.getLong() != hash) {
+            return null;
+        }
+        return codec.read(in);
+    }
+
+    /**
+     * Write the cache to a temporary file first, then move it into place, so a half written cache is never read.
+     * Each write gets its own temporary file, so two processes caching the same input can't write over each other.
+     */
+    static <M> void write(Path cache, Codec<M> codec, M model, long length, long hash) throws IOException {
+        Path directory = cache.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, cache.getFileName().toString(), ".tmp");
+        try {
+            writeTo(temporary, codec, model, length, hash);
+            Files.move(temporary, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static <M> void writeTo(Path temporary, Codec<M> codec, M model, long length, long hash) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(codec.version());
+            // reserved, keeps the header a multiple of 8 bytes
+            out.writeInt(0);
+            out.writeLong(length);
+            out.writeLong(hash);
+            codec.write(model, out);
+        }
+    }
+
+    /**
+     * Write the first count values of an array, preceded by count
+     */
+    public static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    /**
+     * Read an array written by {@link #writeInts}
+     */
+    public static int[] readInts(ByteBuffer in) {
+        int[] values = new int[readCount(in, Integer.BYTES)];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * Write the first count values of an array, preceded by count
+     */
+    public static void writeLongs(DataOutputStream out, long[] values, int count) throws IOException {
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeLong(values[i]);
+        }
+    }
+
+    /**
+     * Read an array written by {@link #writeLongs}
+     */
+    public static long[] readLongs(ByteBuffer in) {
+        long[] values = new long[readCount(in, Long.BYTES)];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + values.length * Long.BYTES);
+        return values;
+    }
+
+    /**
+     * Read the count written before an array, checking the rest of the cache is long enough to hold that many values,
+     * so a corrupt count is caught before anything is allocated for it
+     * @param elementSize bytes per value
+     * @return the count
+     * @throws IllegalArgumentException if the count is negative or larger than the rest of the cache
+     */
+    private static int readCount(ByteBuffer in, int elementSize) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / elementSize) {
+            throw new IllegalArgumentException("Array of " + count + " values does not fit in the " + in.remaining() + " bytes left");
+        }
+        return count;
+    }
+}
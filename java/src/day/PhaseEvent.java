@@ -0,0 +1,82 @@
+package day;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event covering one phase of a solution: loading its input, or solving a part.
+ * Recorded with e.g. -XX:StartFlightRecording. Only created through {@link PhaseRecorder}, so it isn't even loaded
+ * when no recording is running.
+ */
+@Name("day.Phase")
+@Label("Solution Phase")
+@Category("Advent of Code")
+@Description("Loading a day's input or solving one of its parts")
+public class PhaseEvent extends Event {
+
+    @Label("Day")
+    String day;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Lines")
+    long lines;
+
+    @Label("Answer")
+    long answer;
+
+    PhaseEvent(String day, String phase) {
+        this.day = day;
+        this.phase = phase;
+    }
+}
+
+/**
+ * Records {@link PhaseEvent}s, but only while Flight Recorder is running. Loading the JFR event classes takes a few
+ * hundred milliseconds, which is more than most days take to solve, so without a recording they are never loaded.
+ * Solutions only refer to this class, never to the event itself, so loading them doesn't load the event either.
+ */
+final class PhaseRecorder {
+
+    private static final PhaseRecorder OFF = new PhaseRecorder(null);
+
+    private final PhaseEvent event;
+
+    private PhaseRecorder(PhaseEvent event) {
+        this.event = event;
+    }
+
+    /**
+     * Start timing a phase
+     * @param day the day, i.e. 'two'
+     * @param phase what the day is doing, i.e. 'load' or 'part 1'
+     * @return the phase, to commit once it is over
+     */
+    static PhaseRecorder begin(String day, String phase) {
+        // only true once a recording has been started, with -XX:StartFlightRecording or jcmd
+        if (!FlightRecorder.isInitialized()) {
+            return OFF;
+        }
+        PhaseEvent event = new PhaseEvent(day, phase);
+        event.begin();
+        return new PhaseRecorder(event);
+    }
+
+    /**
+     * End the phase, recording it if a recording is running
+     * @param lines lines of input read in the phase, 0 if none
+     * @param answer the answer found in the phase, 0 if none
+     */
+    void commit(long lines, long answer) {
+        if (event != null) {
+            event.lines = lines;
+            event.answer = answer;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package day;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The answer to one part of a puzzle. Each run of a part gets its own Result, and any number of threads
+ * can add to it at once without contending on a single counter.
+ */
+public class Result {
+
+    private final LongAdder total = new LongAdder();
+
+    public Result() {
+    }
+
+    /**
+     * @param value the starting value of this result
+     */
+    public Result(long value) {
+        total.add(value);
+    }
+
+    /**
+     * Add a value to the total. Safe to call from many threads at once.
+     * @param value amount to add
+     */
+    public void add(long value) {
+        total.add(value);
+    }
+
+    /**
+     * @return the total so far. Only exact once every thread adding to it has finished.
+     */
+    public long get() {
+        return total.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+}
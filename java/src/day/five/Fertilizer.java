@@ -0,0 +1,290 @@
+/**
+ * Day 5: If You Give A Seed A Fertilizer
+ */
+
+package day.five;
+
+import day.AdventOfCodeSolution;
+import day.ByteCursor;
+import day.InputArena;
+import day.Result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class Fertilizer extends AdventOfCodeSolution<Almanac> {
+
+    public Fertilizer(String day) {
+        super(day);
+    }
+
+    public static void main(String[] args) {
+        Fertilizer solution = new Fertilizer("five");
+        solution.solve();
+    }
+
+    /**
+     * The maps are held in full, so the input always has to be loaded, however large it is
+     * @throws IllegalStateException if the input could not be loaded
+     */
+    @Override
+    protected Almanac parse() {
+        InputArena input = arena();
+        if (input == null) {
+            throw new IllegalStateException("Day " + day + " is solved from the whole almanac, so its input must be loaded, and "
+                    + getInputPath() + " could not be");
+        }
+        return Almanac.parse(input);
+    }
+
+    /**
+     * The lowest location of any seed, treating each seed number as a single seed
+     */
+    @Override
+    public Result solvePartOne() {
+        Almanac almanac = model();
+        long lowest = Long.MAX_VALUE;
+        for (long seed : almanac.seeds) {
+            lowest = Math.min(lowest, almanac.seedToLocation.apply(seed));
+        }
+        return new Result(lowest);
+    }
+
+    /**
+     * The lowest location of any seed, treating the seed numbers as pairs of range start and length.
+     * Each range is looked up a piece of the seed to location map at a time, and the ranges are independent, so they
+     * are evaluated in parallel.
+     */
+    @Override
+    public Result solvePartTwo() {
+        Almanac almanac = model();
+        long[] seeds = almanac.seeds;
+        return new Result(IntStream.range(0, seeds.length / 2).parallel()
+                .mapToLong(pair -> almanac.seedToLocation.lowest(seeds[2 * pair], seeds[2 * pair] + seeds[2 * pair + 1]))
+                .min()
+                .orElse(0));
+    }
+}
+
+/**
+ * The parsed puzzle input: the seed numbers, each map in the order it is given, and every map composed into one
+ */
+class Almanac {
+
+    final long[] seeds;
+    final List<RangeMap> maps;
+    final RangeMap seedToLocation;
+
+    Almanac(long[] seeds, List<RangeMap> maps) {
+        this.seeds = seeds;
+        this.maps = maps;
+        RangeMap composed = RangeMap.IDENTITY;
+        for (RangeMap map : maps) {
+            composed = composed.andThen(map);
+        }
+        this.seedToLocation = composed;
+    }
+
+    /**
+     * Read an almanac, i.e. 'seeds: 79 14 55 13' followed by blocks of 'seed-to-soil map:' and 'destination source
+     * length' rows, each block ending at a blank line.
+     * @param input the puzzle input
+     * @return the almanac
+     * @throws IllegalArgumentException if the input doesn't start with the seeds, or a row doesn't have three numbers
+     */
+    static Almanac parse(InputArena input) {
+        if (input.lineCount() == 0) {
+            throw new IllegalArgumentException("Almanac must start with a line of seeds");
+        }
+        ByteCursor cursor = new ByteCursor(input.bytes(), input.lineStart(0), input.lineEnd(0));
+        long[] seeds = numbers(cursor.expect("seeds:"));
+        List<RangeMap> maps = new ArrayList<>();
+        RangeMap.Builder map = null;
+        for (int line = 1; line < input.lineCount(); line++) {
+            int start = input.lineStart(line), end = input.lineEnd(line);
+            if (start == end) {
+                continue;
+            }
+            if (input.bytes()[end - 1] == ':') {
+                if (map != null) {
+                    maps.add(map.build());
+                }
+                map = new RangeMap.Builder();
+                continue;
+            }
+            long[] row = numbers(cursor.reset(input.bytes(), start, end));
+            if (map == null || row.length != 3) {
+                throw new IllegalArgumentException("Expected a row of three numbers inside a map at line " + (line + 1) + ": " + input.line(line));
+            }
+            map.add(row[1], row[0], row[2]);
+        }
+        if (map != null) {
+            maps.add(map.build());
+        }
+        return new Almanac(seeds, maps);
+    }
+
+    /**
+     * @param cursor cursor somewhere in a line
+     * @return every number from the cursor to the end of the line, in order
+     */
+    static long[] numbers(ByteCursor cursor) {
+        long[] numbers = new long[8];
+        int count = 0;
+        while (cursor.skipUntilDigit()) {
+            if (count == numbers.length) {
+                numbers = Arrays.copyOf(numbers, count * 2);
+            }
+            numbers[count++] = cursor.readLong();
+        }
+        return Arrays.copyOf(numbers, count);
+    }
+}
+
+/**
+ * A map from one kind of number to another, as a piecewise function over every long. Piece i covers
+ * starts[i] up to, but not including, starts[i + 1] and adds offsets[i] to each number in it. The last piece runs on
+ * forever. Numbers no row covers map to themselves, so they are pieces with an offset of 0.
+ * Since each piece only shifts numbers, the lowest number a piece maps to is always where the piece starts.
+ */
+class RangeMap {
+
+    static final RangeMap IDENTITY = new RangeMap(new long[]{Long.MIN_VALUE}, new long[]{0});
+
+    final long[] starts;
+    final long[] offsets;
+
+    RangeMap(long[] starts, long[] offsets) {
+        this.starts = starts;
+        this.offsets = offsets;
+    }
+
+    /**
+     * @return index of the piece holding the number
+     */
+    int piece(long number) {
+        int index = Arrays.binarySearch(starts, number);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * @return where the piece ends, exclusive
+     */
+    long end(int piece) {
+        return piece + 1 < starts.length ? starts[piece + 1] : Long.MAX_VALUE;
+    }
+
+    long apply(long number) {
+        return number + offsets[piece(number)];
+    }
+
+    /**
+     * The lowest number any of a range of numbers maps to. Only the start of each piece the range overlaps needs to
+     * be looked at, however long the range is.
+     * @param from first number in the range
+     * @param to number after the last one in the range
+     * @return the lowest mapped number, or Long.MAX_VALUE if the range is empty
+     */
+    long lowest(long from, long to) {
+        long lowest = Long.MAX_VALUE;
+        if (from >= to) {
+            return lowest;
+        }
+        for (int piece = piece(from); piece < starts.length && starts[piece] < to; piece++) {
+            lowest = Math.min(lowest, Math.max(from, starts[piece]) + offsets[piece]);
+        }
+        return lowest;
+    }
+
+    /**
+     * Compose this map with the one after it in the chain, so the result maps x to next.apply(this.apply(x)).
+     * Each piece of this map is shifted by its offset and split wherever a piece of the next map starts, which is
+     * the same as pushing a whole range of numbers through both maps at once.
+     * @param next the map to apply afterwards
+     * @return a single map doing both
+     */
+    RangeMap andThen(RangeMap next) {
+        Builder composed = new Builder();
+        for (int piece = 0; piece < starts.length; piece++) {
+            long offset = offsets[piece];
+            // where this piece's numbers end up, which is where to look in the next map
+            long from = starts[piece] + offset;
+            long to = end(piece) == Long.MAX_VALUE ? Long.MAX_VALUE : end(piece) + offset;
+            for (int nextPiece = next.piece(from); nextPiece < next.starts.length && next.starts[nextPiece] < to; nextPiece++) {
+                composed.piece(Math.max(from, next.starts[nextPiece]) - offset, offset + next.offsets[nextPiece]);
+            }
+        }
+        return composed.build();
+    }
+
+    /**
+     * Collects the pieces of a map. Rows can be added in any order, then are sorted and have the gaps between them
+     * filled in with pieces that leave numbers as they are.
+     */
+    static class Builder {
+        private final List<long[]> rows = new ArrayList<>();
+        private long[] starts = new long[16];
+        private long[] offsets = new long[16];
+        private int count = 0;
+
+        /**
+         * Add a row of the almanac, mapping source up to source + length onto destination up to destination + length
+         * @throws IllegalArgumentException if the length is negative
+         */
+        Builder add(long source, long destination, long length) {
+            if (length < 0) {
+                throw new IllegalArgumentException("Row has a negative length: " + destination + " " + source + " " + length);
+            }
+            if (length > 0) {
+                rows.add(new long[]{source, source + length, destination - source});
+            }
+            return this;
+        }
+
+        /**
+         * Add the next piece of a map that is already in order. Pieces that carry on from the last one with the same
+         * offset are merged into it.
+         */
+        Builder piece(long start, long offset) {
+            if (count > 0 && offsets[count - 1] == offset) {
+                return this;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            starts[count] = start;
+            offsets[count] = offset;
+            count++;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if two rows cover the same number
+         */
+        RangeMap build() {
+            if (!rows.isEmpty()) {
+                rows.sort((a, b) -> Long.compare(a[0], b[0]));
+                long covered = Long.MIN_VALUE;
+                for (long[] row : rows) {
+                    if (row[0] < covered) {
+                        throw new IllegalArgumentException("Rows overlap at " + row[0]);
+                    }
+                    if (row[0] > covered) {
+                        piece(covered, 0);
+                    }
+                    piece(row[0], row[2]);
+                    covered = row[1];
+                }
+                piece(covered, 0);
+                rows.clear();
+            }
+            if (count == 0) {
+                piece(Long.MIN_VALUE, 0);
+            }
+            return new RangeMap(Arrays.copyOf(starts, count), Arrays.copyOf(offsets, count));
+        }
+    }
+}
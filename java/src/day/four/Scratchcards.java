@@ -7,35 +7,164 @@
 package day.four;
 
 import day.AdventOfCodeSolution;
+import day.ByteCursor;
+import day.InputArena;
+import day.LineReader;
+import day.LineSolver;
+import day.ModelCache;
+import day.Result;
 
-import java.util.ArrayList;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
-public class Scratchcards extends AdventOfCodeSolution {
+public class Scratchcards extends AdventOfCodeSolution<CardStore> {
+
+    static final int REPORT_INTERVAL = 1_000_000;
 
     public Scratchcards(String day) {
         super(day);
     }
 
-    public static void main(String[] args) {
+    /**
+     * Run with '--stream [file]' to stream cards from a file, or from standard input if no file is given,
+     * instead of loading the whole input first.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--stream")) {
+            try (InputStream in = args.length > 1 ? new FileInputStream(args[1]) : System.in) {
+                ScratchcardStream stream = stream(in, (cardId, partOne, partTwo) -> {
+                    if (cardId % REPORT_INTERVAL == 0) {
+                        System.out.println("Card " + cardId + ": part 1 " + partOne + ", part 2 " + partTwo);
+                    }
+                });
+                System.out.println("Final total ( part 1 ): " + stream.partOne);
+                System.out.println("Final total ( part 2 ): " + stream.partTwo);
+            }
+            return;
+        }
         Scratchcards solution = new Scratchcards("four");
         solution.solve();
     }
 
-    public void solvePartOne() {
-        ScratchGame game = new ScratchGame(input);
-        for (Scratchcard s : game.cards) {
-            addTotal(s.getPartOneScore());
+    /**
+     * Play both parts over cards as they are read, without ever holding more than one card.
+     * @param in stream of cards, one per line
+     * @param listener told the running totals after every card
+     * @return the stream, holding the final totals
+     * @throws IOException if the stream cannot be read
+     */
+    public static ScratchcardStream stream(InputStream in, ScratchcardStream.Listener listener) throws IOException {
+        ScratchcardStream stream = new ScratchcardStream(listener);
+        LineReader.read(in, stream::accept);
+        return stream;
+    }
+
+    /**
+     * Boil every card down to its ID and how many of its numbers match, which is all either part needs
+     */
+    @Override
+    protected CardStore parse() {
+        return CardStore.parse(arena());
+    }
+
+    /**
+     * A mapped input is solved a card at a time, see {@link ScratchcardStream}
+     */
+    @Override
+    protected boolean canMap() {
+        return true;
+    }
+
+    @Override
+    protected ModelCache.Codec<CardStore> codec() {
+        return CardStore.CODEC;
+    }
+
+    /**
+     * Mapped inputs are scored card by card in parallel, rather than held in a store
+     */
+    @Override
+    public Result solvePartOne() {
+        if (isMapped()) {
+            return new Result(solveEveryLine(new LineSolver() {
+                @Override
+                public long solveLine(byte[] bytes, int start, int end) {
+                    return start == end ? 0 : CardStore.getPartOneScore(CardStore.matches(CardStore.parseCard(bytes, start, end)));
+                }
+
+                @Override
+                public long combine(long a, long b) {
+                    return Math.addExact(a, b);
+                }
+            }));
+        }
+        CardStore cards = model();
+        long total = 0;
+        for (int i = 0; i < cards.size; i++) {
+            total = Math.addExact(total, CardStore.getPartOneScore(cards.matches[i]));
+        }
+        return new Result(total);
+    }
+
+    /**
+     * Mapped inputs are played as a stream, since copies won depend on the cards before
+     */
+    @Override
+    public Result solvePartTwo() {
+        if (isMapped()) {
+            return new Result(streamMapped().partTwo);
         }
-        System.out.println("Solution ( part 1 ): " + total);
+        return new Result(new ScratchGame(model()).play());
     }
 
-    public void solvePartTwo() {
-        ScratchGame game = new ScratchGame(input);
-        System.out.println("Solution ( part 2 ): " + game.play().size());
+    /**
+     * Play both parts in a single pass over the input, one card at a time, without building a store.
+     */
+    @Override
+    public Result[] solveBoth() {
+        ScratchcardStream stream;
+        if (isMapped()) {
+            stream = streamMapped();
+        } else {
+            stream = new ScratchcardStream((cardId, partOne, partTwo) -> { });
+            InputArena input = arena();
+            for (int line = 0; line < input.lineCount(); line++) {
+                stream.accept(input.bytes(), input.lineStart(line), input.lineEnd(line));
+            }
+        }
+        return new Result[]{new Result(stream.partOne), new Result(stream.partTwo)};
+    }
+
+    /**
+     * Cards are played as a stream, so a new card only adds its score and the copies won so far of it. Copies it
+     * wins of cards not written yet are counted once those cards arrive.
+     */
+    @Override
+    public RunningAnswers runningAnswers() {
+        ScratchcardStream stream = new ScratchcardStream((cardId, partOne, partTwo) -> { });
+        return new RunningAnswers() {
+            @Override
+            public void accept(byte[] bytes, int start, int end) {
+                stream.accept(bytes, start, end);
+            }
+
+            @Override
+            public Result[] answers() {
+                return new Result[]{new Result(stream.partOne), new Result(stream.partTwo)};
+            }
+        };
+    }
+
+    private ScratchcardStream streamMapped() {
+        ScratchcardStream stream = new ScratchcardStream((cardId, partOne, partTwo) -> { });
+        mapped().forEachLine(stream::accept);
+        return stream;
     }
 }
 
@@ -43,136 +172,256 @@ public class Scratchcards extends AdventOfCodeSolution {
  * Represents a list of scratchcards
  */
 class ScratchGame {
-    List<Scratchcard> cards = new ArrayList<>();
+    final CardStore cards;
+
+    public ScratchGame(CardStore cards) {
+        this.cards = cards;
+    }
+
+    public ScratchGame(InputArena input) {
+        this(CardStore.parse(input));
+    }
+
     public ScratchGame(List<String> input) {
-        for(String line : input) {
-            cards.add(new Scratchcard(line));
-        }
+        this(CardStore.parse(input));
     }
 
     /**
-     * Kick off the scratchcard game from part 2
-     * @return a list of scratchcard games as requested in part 2
+     * Play the scratchcard game from part 2, where each match wins a copy of one of the following cards.
+     * Rather than creating every copy, this keeps a count of copies per card in a difference array: card i adds
+     * its copy count to the cards after it by bumping one entry up and one entry down, so the whole game is one
+     * pass over the cards however many copies are won.
+     * @return how many scratchcards there are once every copy has been won
+     * @throws ArithmeticException if the number of scratchcards does not fit in a long
      */
-    public List<Scratchcard> play() {
-        List<Scratchcard> gameResults = new ArrayList<>();
-        for (Scratchcard card : cards) {
-            gameResults.add(card.clone());
+    public long play() {
+        int size = cards.size;
+        long[] wonCopies = new long[size + 1];
+        long copies = 0;
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            try {
+                copies = Math.addExact(copies, wonCopies[i]);
+                long instances = Math.addExact(copies, 1);
+                total = Math.addExact(total, instances);
+                int matches = cards.matches[i];
+                if (matches > 0 && i + 1 < size) {
+                    wonCopies[i + 1] = Math.addExact(wonCopies[i + 1], instances);
+                    int end = Math.min(size, i + 1 + matches);
+                    wonCopies[end] = Math.subtractExact(wonCopies[end], instances);
+                }
+            } catch (ArithmeticException e) {
+                throw new ArithmeticException("Number of scratchcards no longer fits in a long at card " + cards.ids[i]);
+            }
         }
+        return total;
+    }
+}
 
-        playGame(gameResults, gameResults);
-        return gameResults;
+/**
+ * Plays both parts one card at a time, for inputs too large to hold.
+ * Part two only needs to know how many copies have been won of the next few cards, so those counts are kept in a
+ * ring buffer that is as long as the most matches any card has had. Memory depends on how wide a card is,
+ * not on how many cards there are.
+ */
+class ScratchcardStream {
+
+    /**
+     * Receives running totals as each card is played
+     */
+    @FunctionalInterface
+    interface Listener {
+        void totals(int cardId, long partOne, long partTwo);
+    }
+
+    long partOne, partTwo;
+    private final Listener listener;
+    private long[] wonCopies = new long[16];
+    private int next = 0;
+
+    ScratchcardStream(Listener listener) {
+        this.listener = listener;
     }
 
     /**
-     * Recursively play the game and all sub-games that occur as a result
-     * @param game the current game to play
-     * @param gameResults where to store the results of the game
+     * Play the next card
+     * @param bytes array holding the card
+     * @param start index of the first byte of the card
+     * @param end index just past the last byte of the card
+     * @throws ArithmeticException if the number of scratchcards does not fit in a long
      */
-    public void playGame(List<Scratchcard> game, List<Scratchcard> gameResults) {
-        List<Scratchcard> subgame = new ArrayList<>();
-        for (int i = 0; i < game.size(); i++) {
-            Scratchcard c = game.get(i);
-            if (!c.counted) {
-                c.counted = true;
-                for (int j = c.id; j < c.id + c.matches; j++) {
-                    Scratchcard newCard = cards.get(j).clone();
-                    gameResults.add(newCard);
-                    subgame.add(newCard);
-                }
-                if (c.matches != 0) {
-                    playGame(subgame, gameResults);
-                }
+    void accept(byte[] bytes, int start, int end) {
+        if (start == end) {
+            return;
+        }
+        long card = CardStore.parseCard(bytes, start, end);
+        int matches = CardStore.matches(card);
+        if (matches >= wonCopies.length) {
+            grow(matches + 1);
+        }
+        try {
+            long instances = Math.addExact(wonCopies[next], 1);
+            wonCopies[next] = 0;
+            next = (next + 1) % wonCopies.length;
+            for (int i = 0; i < matches; i++) {
+                int slot = (next + i) % wonCopies.length;
+                wonCopies[slot] = Math.addExact(wonCopies[slot], instances);
             }
+            partOne = Math.addExact(partOne, CardStore.getPartOneScore(matches));
+            partTwo = Math.addExact(partTwo, instances);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Number of scratchcards no longer fits in a long at card " + CardStore.id(card));
         }
+        listener.totals(CardStore.id(card), partOne, partTwo);
+    }
+
+    /**
+     * Make the ring buffer longer, unrolling it so the next card's count is first
+     */
+    private void grow(int capacity) {
+        long[] grown = new long[Math.max(capacity, wonCopies.length * 2)];
+        for (int i = 0; i < wonCopies.length; i++) {
+            grown[i] = wonCopies[(next + i) % wonCopies.length];
+        }
+        wonCopies = grown;
+        next = 0;
     }
 }
 
 /**
- * Represents a single scratchcard
+ * Every scratchcard boiled down to its ID and how many of its numbers match, one int array for each.
  */
-class Scratchcard implements Cloneable {
-
-    public Integer id;
-    private final String ID_REGEX = "Card \\s*(\\d+)";
-    protected List<Integer> winningNumbers = new ArrayList<>();
-    protected List<Integer> scratchNumbers = new ArrayList<>();
-    public List<Integer> matchingNumbers;
-    public int matches = 0;
-
-    public boolean counted = false;
-
-    public Scratchcard(String game) {
-        String[] temp = game.split(":");
-        this.id = getGameId(temp[0].trim());
-        String gameString = temp[1].trim();
-        extractGameInfo(gameString.split("\\|")[0], winningNumbers);
-        extractGameInfo(gameString.split("\\|")[1], scratchNumbers);
-        this.matchingNumbers = this.winningNumbers.stream().filter(x -> scratchNumbers.stream().anyMatch(y -> y == x)).toList();
-        this.matches = this.matchingNumbers.size();
-    }
-
-    public Scratchcard(Integer id, List<Integer> winningNumbers, List<Integer> scratchNumbers, List<Integer> matchingNumbers, int matches) {
-        this.id = id;
-        this.winningNumbers = winningNumbers;
-        this.scratchNumbers = scratchNumbers;
-        this.matchingNumbers = matchingNumbers;
+class CardStore {
+
+    /** Numbers on a card are kept as bits in two longs, so they must be below this */
+    static final int MAX_NUMBER = 128;
+    /** Cards are parsed on many threads at once, each with its own cursor */
+    static final ThreadLocal<ByteCursor> CURSORS = ThreadLocal.withInitial(ByteCursor::new);
+
+    final int size;
+    final int[] ids, matches;
+
+    /** Saves the ID and match count of every card */
+    static final ModelCache.Codec<CardStore> CODEC = new ModelCache.Codec<>() {
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public void write(CardStore store, DataOutputStream out) throws IOException {
+            ModelCache.writeInts(out, store.ids, store.size);
+            ModelCache.writeInts(out, store.matches, store.size);
+        }
+
+        @Override
+        public CardStore read(ByteBuffer in) {
+            int[] ids = ModelCache.readInts(in), matches = ModelCache.readInts(in);
+            if (matches.length != ids.length) {
+                throw new IllegalArgumentException("Cached card columns have different lengths");
+            }
+            return new CardStore(ids, matches);
+        }
+    };
+
+    /**
+     * @param ids the ID of every card, in order
+     * @param matches how many numbers match on each card, one entry per ID
+     */
+    CardStore(int[] ids, int[] matches) {
+        this.size = ids.length;
+        this.ids = ids;
         this.matches = matches;
     }
 
     /**
-     * Extract the Game ID from a string like 'Game 3'
-     * @param idString
-     * @return ID as an integer
+     * Parse every line of the input into a store, in parallel
+     * @param input the input, one card per line
+     * @return a store holding every card
      */
-    private Integer getGameId(String idString) {
-        Pattern r = Pattern.compile(ID_REGEX);
-        Matcher m = r.matcher(idString);
-        if (m.find()) {
-            return Integer.parseInt(m.group(1));
-        } else {
-            return null;
-        }
+    static CardStore parse(InputArena input) {
+        int[] ids = new int[input.lineCount()];
+        int[] matches = new int[ids.length];
+        IntStream.range(0, ids.length).parallel().forEach(line -> {
+            long card = parseCard(input.bytes(), input.lineStart(line), input.lineEnd(line));
+            ids[line] = id(card);
+            matches[line] = matches(card);
+        });
+        return new CardStore(ids, matches);
     }
 
     /**
-     * Parse the numbers from the input text into a list of integers
-     * @param gameInfo
-     * @param resultsContainer
+     * Parse every line into a store, in order
+     * @param lines one card per line
+     * @return a store holding every card
      */
-    public void extractGameInfo(String gameInfo, List<Integer> resultsContainer) {
-        for (String s : gameInfo.split(" ")) {
-            if (!s.equals("") && !s.equals(" ")) {
-                resultsContainer.add(Integer.parseInt(s));
-            }
+    static CardStore parse(List<String> lines) {
+        int[] ids = new int[lines.size()];
+        int[] matches = new int[ids.length];
+        for (int line = 0; line < ids.length; line++) {
+            byte[] bytes = lines.get(line).getBytes(StandardCharsets.ISO_8859_1);
+            long card = parseCard(bytes, 0, bytes.length);
+            ids[line] = id(card);
+            matches[line] = matches(card);
         }
+        return new CardStore(ids, matches);
     }
 
     /**
-     * Return the score as described in part 1 of this problem
-     * @return part 1 score for this scratch card
+     * Read a card straight from the bytes of a line, i.e. 'Card 1: 41 48 83 | 83 86  6 17'.
+     * Each side of the '|' becomes a 128 bit set held in two longs, so the matches are the bits set on both sides.
+     * @param bytes array holding the line
+     * @param start index of the first byte of the line
+     * @param end index just past the last byte of the line
+     * @return the card's ID and match count packed into a long. See {@link #id(long)} and {@link #matches(long)}
+     * @throws IllegalArgumentException if the line isn't a card, or a number on the card is too large to fit in the bit set
      */
-    public int getPartOneScore() {
-        return (int) Math.pow(2, matches-1);
+    static long parseCard(byte[] bytes, int start, int end) {
+        ByteCursor cursor = CURSORS.get().reset(bytes, start, end);
+        int id = cursor.expect("Card").skipSpaces().readInt();
+        cursor.expect(':');
+        long winningLow = 0, winningHigh = 0, scratchLow = 0, scratchHigh = 0;
+        boolean scratch = false;
+        while (cursor.skipSpaces().hasNext()) {
+            if (cursor.peek() == '|') {
+                cursor.expect('|');
+                scratch = true;
+                continue;
+            }
+            int number = cursor.readInt();
+            if (number >= MAX_NUMBER) {
+                throw new IllegalArgumentException("Card " + id + " has a number of " + MAX_NUMBER + " or more");
+            }
+            // shift distances are taken mod 64, so this is also the right bit within the high word
+            long bit = 1L << number;
+            if (number < 64) {
+                if (scratch) scratchLow |= bit; else winningLow |= bit;
+            } else {
+                if (scratch) scratchHigh |= bit; else winningHigh |= bit;
+            }
+        }
+        int matches = Long.bitCount(winningLow & scratchLow) + Long.bitCount(winningHigh & scratchHigh);
+        return ((long) id << 32) | matches;
     }
 
-    public Scratchcard clone() {
-        ArrayList<Integer> winningNumbers = new ArrayList<>(this.winningNumbers);
-        ArrayList<Integer> scratchNumbers = new ArrayList<>(this.scratchNumbers);
-        ArrayList<Integer> matchingNumbers = new ArrayList<>(this.matchingNumbers);
-        return new Scratchcard(this.id, winningNumbers, scratchNumbers, matchingNumbers, this.matches);
+    static int id(long card) {
+        return (int) (card >>> 32);
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Scratchcard that = (Scratchcard) o;
-        return Objects.equals(id, that.id);
+    static int matches(long card) {
+        return (int) card;
     }
 
-    @Override
-    public int hashCode() {
-        return Objects.hash(id);
+    /**
+     * Return the score as described in part 1 of this problem
+     * @param matches how many numbers on the card match
+     * @return part 1 score for this scratch card
+     * @throws ArithmeticException if the card has more than 63 matches, so its score doesn't fit in a long
+     */
+    static long getPartOneScore(int matches) {
+        if (matches >= Long.SIZE) {
+            throw new ArithmeticException("A card with " + matches + " matches scores more than fits in a long");
+        }
+        return matches == 0 ? 0 : 1L << (matches - 1);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+package day.one;
+
+import day.InputArena;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Sums the part one calibration values of every line in a range of bytes, where a line's value is made from its
+ * first and last digit. Lines without a digit are reported and count as 0.
+ */
+interface DigitKernel {
+
+    /**
+     * The vector kernel if the JVM was started with '--add-modules jdk.incubator.vector' and has vector registers,
+     * otherwise the scalar one. The vector classes are never loaded unless the module is there.
+     */
+    DigitKernel INSTANCE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && VectorDigitKernel.isSupported()
+            ? new VectorDigitKernel() : new ScalarDigitKernel();
+
+    /**
+     * @param bytes array holding the lines as Latin-1 bytes
+     * @param from index of the first byte of the first line
+     * @param to index just past the last line, either its line break or the end of the input
+     * @return the sum of the calibration values of every line
+     */
+    long sumCalibrationValues(byte[] bytes, int from, int to);
+
+    static long reportNoDigits(byte[] bytes, int start, int end) {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        System.out.println(String.format(Trebuchet.PARSE_LINE_ERROR_MSG, "No digits found in line: " + new InputArena.Line(bytes, start, end)));
+        return 0;
+    }
+}
+
+/**
+ * Looks at one byte at a time, one line at a time
+ */
+class ScalarDigitKernel implements DigitKernel {
+
+    @Override
+    public long sumCalibrationValues(byte[] bytes, int from, int to) {
+        long total = 0;
+        int start = from;
+        while (start < to) {
+            int next = start;
+            while (next < to && bytes[next] != '\n') {
+                next++;
+            }
+            int end = next > start && bytes[next - 1] == '\r' ? next - 1 : next;
+            try {
+                total += Trebuchet.getCalibrationValue(bytes, start, end);
+            } catch (NumberFormatException e) {
+                System.out.println(String.format(Trebuchet.PARSE_LINE_ERROR_MSG, e.getMessage()));
+            }
+            start = next + 1;
+        }
+        return total;
+    }
+}
+
+/**
+ * Looks at 16 bytes at a time. A line's first digit is the first lane that holds either a digit or a line break,
+ * the end of the line is the first lane holding a line break, and its last digit is the last lane holding a digit
+ * when reading back from there. Most lines take a handful of vector compares rather than a compare per byte.
+ * 128 bit vectors are used even where wider ones exist, since firstTrue and lastTrue are only compiled to a few
+ * instructions for them on JDK 17.
+ */
+class VectorDigitKernel implements DigitKernel {
+
+    static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_128;
+    static final int LANES = SPECIES.length();
+
+    /**
+     * @return true if there are real vector registers, rather than vectors emulated one lane at a time
+     */
+    static boolean isSupported() {
+        return ByteVector.SPECIES_PREFERRED.vectorBitSize() >= SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public long sumCalibrationValues(byte[] bytes, int from, int to) {
+        long total = 0;
+        int start = from;
+        while (start < to) {
+            int first = firstDigitOrNewline(bytes, start, to);
+            int newline = first < to && bytes[first] == '\n' ? first : nextNewline(bytes, first, to);
+            if (first == newline) {
+                total += DigitKernel.reportNoDigits(bytes, start, newline);
+            } else {
+                total += (bytes[first] - '0') * 10 + (bytes[lastDigit(bytes, first, newline)] - '0');
+            }
+            start = newline + 1;
+        }
+        return total;
+    }
+
+    /**
+     * @return index of the first digit or line break at or after from, or to if there is neither
+     */
+    private static int firstDigitOrNewline(byte[] bytes, int from, int to) {
+        int i = from;
+        for (; i + LANES <= to; i += LANES) {
+            ByteVector block = ByteVector.fromArray(SPECIES, bytes, i);
+            VectorMask<Byte> found = block.compare(VectorOperators.GE, (byte) '0').and(block.compare(VectorOperators.LE, (byte) '9'))
+                    .or(block.compare(VectorOperators.EQ, (byte) '\n'));
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        while (i < to && bytes[i] != '\n' && (bytes[i] < '0' || bytes[i] > '9')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return index of the first line break at or after from, or to if there isn't one
+     */
+    private static int nextNewline(byte[] bytes, int from, int to) {
+        int i = from;
+        for (; i + LANES <= to; i += LANES) {
+            VectorMask<Byte> found = ByteVector.fromArray(SPECIES, bytes, i).compare(VectorOperators.EQ, (byte) '\n');
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        while (i < to && bytes[i] != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @param first index of a digit
+     * @param end index after the last byte to look at
+     * @return index of the last digit before end, which is first if there are no others
+     */
+    private static int lastDigit(byte[] bytes, int first, int end) {
+        int i = end;
+        for (; i - LANES >= first; i -= LANES) {
+            ByteVector block = ByteVector.fromArray(SPECIES, bytes, i - LANES);
+            VectorMask<Byte> digits = block.compare(VectorOperators.GE, (byte) '0').and(block.compare(VectorOperators.LE, (byte) '9'));
+            if (digits.anyTrue()) {
+                return i - LANES + digits.lastTrue();
+            }
+        }
+        do {
+            i--;
+        } while (bytes[i] < '0' || bytes[i] > '9');
+        return i;
+    }
+}
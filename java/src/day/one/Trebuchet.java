@@ -8,11 +8,19 @@
 package day.one;
 
 import day.AdventOfCodeSolution;
+import day.InputArena;
+import day.LineSolver;
+import day.Result;
 
-public class Trebuchet extends AdventOfCodeSolution {
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class Trebuchet extends AdventOfCodeSolution<InputArena> {
 
     static final String[] NUMBERS_AS_STRINGS = new String[]{"one", "two", "three", "four", "five", "six", "seven", "eight", "nine"};
     static final String PARSE_LINE_ERROR_MSG = "Unable to parse calibration value. Exception message follows: %s";
+    static final DigitWordScanner DIGIT_WORD_SCANNER = new DigitWordScanner(DigitWordScanner.wordsToDigits(NUMBERS_AS_STRINGS));
 
     public Trebuchet(String day) {
         super(day);
@@ -23,41 +31,113 @@ public class Trebuchet extends AdventOfCodeSolution {
         solution.solve();
     }
 
+    /**
+     * Every line is solved straight out of the input, so there is nothing to parse beyond loading it
+     */
+    @Override
+    protected InputArena parse() {
+        return arena();
+    }
+
+    /**
+     * Every line is solved on its own, so the lines can come from a mapped input
+     */
+    @Override
+    protected boolean canMap() {
+        return true;
+    }
+
     @Override
-    public void solvePartOne() {
-        for (String line : input) {
-            debugLog("Iterating over line " + line);
-            try {
-                int value = getCalibrationValue(line);
-                debugLog("Got value of: " + value);
-                addTotal(value);
-            } catch (NumberFormatException e) {
-                System.out.println(String.format(PARSE_LINE_ERROR_MSG, e.getMessage()));
+    public Result solvePartOne() {
+        LineSolver solver = new LineSolver() {
+            @Override
+            public long solveLine(byte[] bytes, int start, int end) {
+                return partOneValue(bytes, start, end);
             }
-        }
-        System.out.println("Final total ( part 1 ): " + getTotal());
+
+            /**
+             * Whole chunks of lines go to the {@link DigitKernel}, unless every line is to be logged
+             */
+            @Override
+            public long solveLines(byte[] bytes, int from, int to) {
+                return isDebugEnabled() ? LineSolver.super.solveLines(bytes, from, to) : DigitKernel.INSTANCE.sumCalibrationValues(bytes, from, to);
+            }
+        };
+        return new Result(solveEveryLine(solver));
+    }
+
+    @Override
+    public Result solvePartTwo() {
+        LineSolver solver = (bytes, start, end) -> partTwoValue(bytes, start, end);
+        return new Result(solveEveryLine(solver));
     }
 
+    /**
+     * Find both calibration values of each line in a single pass over the input.
+     * Part two's values are combined by the solver as usual, part one's are added up alongside.
+     */
     @Override
-    public void solvePartTwo() {
-        for (String line : input) {
-            debugLog("Iterating over line " + line);
-            try {
-                line = parseNumericStrings(line);
-                debugLog("Line was converted to " + line);
-                int value = getCalibrationValue(line);
-                debugLog("Got value of: " + value);
-                addTotal(value);
-            } catch (NumberFormatException e) {
-                System.out.println(String.format(PARSE_LINE_ERROR_MSG, e.getMessage()));
+    public Result[] solveBoth() {
+        Result partOne = new Result();
+        LineSolver solver = (bytes, start, end) -> {
+            partOne.add(partOneValue(bytes, start, end));
+            return partTwoValue(bytes, start, end);
+        };
+        Result partTwo = new Result(solveEveryLine(solver));
+        return new Result[]{partOne, partTwo};
+    }
+
+    /**
+     * Both parts are sums over lines, so each new line just adds its values
+     */
+    @Override
+    public RunningAnswers runningAnswers() {
+        return new RunningAnswers() {
+            private long partOne, partTwo;
+
+            @Override
+            public void accept(byte[] bytes, int start, int end) {
+                if (start < end) {
+                    partOne += partOneValue(bytes, start, end);
+                    partTwo += partTwoValue(bytes, start, end);
+                }
             }
+
+            @Override
+            public Result[] answers() {
+                return new Result[]{new Result(partOne), new Result(partTwo)};
+            }
+        };
+    }
+
+    private static long partOneValue(byte[] bytes, int start, int end) {
+        debugLog(() -> "Iterating over line " + new InputArena.Line(bytes, start, end));
+        try {
+            int value = getCalibrationValue(bytes, start, end);
+            debugLog(() -> "Got value of: " + value);
+            return value;
+        } catch (NumberFormatException e) {
+            System.out.println(String.format(PARSE_LINE_ERROR_MSG, e.getMessage()));
+            return 0;
+        }
+    }
+
+    private static long partTwoValue(byte[] bytes, int start, int end) {
+        debugLog(() -> "Iterating over line " + new InputArena.Line(bytes, start, end));
+        try {
+            int value = DIGIT_WORD_SCANNER.getCalibrationValue(bytes, start, end);
+            debugLog(() -> "Got value of: " + value);
+            return value;
+        } catch (NumberFormatException e) {
+            System.out.println(String.format(PARSE_LINE_ERROR_MSG, e.getMessage()));
+            return 0;
         }
-        System.out.println("Final total ( part 2 ): " + getTotal());
     }
 
     /**
      * Given a line of input, replace occurrences of strings such as 'one' with integer value equivalent. i.e. 'two' --> 2
      * Note: eightwothree should parse to 823!
+     * Part two no longer uses this, see {@link DigitWordScanner} which finds the digits without rewriting the line.
      * @param line line of input from file
      * @return A sanitized version of the input
      */
@@ -89,19 +169,202 @@ public class Trebuchet extends AdventOfCodeSolution {
      * @return calibration value for this line
      * @throws NumberFormatException If a calibration value is incorrectly parsed
      */
-    static int getCalibrationValue(String input) throws NumberFormatException {
-        Character first = null, last = null;
-        for (char s : input.toCharArray()) {
-            if (Character.isDigit(s) && first == null) {
-                first = s;
-            } else if (Character.isDigit(s)) {
-                last = s;
+    static int getCalibrationValue(CharSequence input) throws NumberFormatException {
+        int first = -1, last = -1;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (first == -1) {
+                    first = c - '0';
+                }
+                last = c - '0';
             }
         }
-        if (last == null) {
-            return Integer.parseInt(String.valueOf(first) + first);
-        } else {
-            return Integer.parseInt(String.valueOf(first) + last);
+        if (first == -1) {
+            throw new NumberFormatException("No digits found in line: " + input);
+        }
+        return first * 10 + last;
+    }
+
+    /**
+     * Given a line of input as Latin-1 bytes, parse what the calibration value should be.
+     * @param bytes array holding the line
+     * @param start index of the first byte of the line
+     * @param end index just past the last byte of the line
+     * @return calibration value for this line
+     * @throws NumberFormatException If the line holds no digits at all
+     */
+    static int getCalibrationValue(byte[] bytes, int start, int end) throws NumberFormatException {
+        int first = start;
+        while (first < end && (bytes[first] < '0' || bytes[first] > '9')) {
+            first++;
+        }
+        if (first == end) {
+            throw new NumberFormatException("No digits found in line: " + new InputArena.Line(bytes, start, end));
+        }
+        int last = end - 1;
+        while (bytes[last] < '0' || bytes[last] > '9') {
+            last--;
+        }
+        return (bytes[first] - '0') * 10 + (bytes[last] - '0');
+    }
+}
+
+/**
+ * Finds the first and last digit in a line, where a digit is either a character like '7' or a word like 'seven'.
+ * Every word is compiled into an Aho-Corasick automaton up front, once for reading forwards and once for reading
+ * backwards, so a line is scanned a byte at a time with no backtracking and no new objects. Overlapping words such
+ * as 'eightwo' need no special handling: reading forwards finds 'eight', reading backwards finds 'two'.
+ */
+class DigitWordScanner {
+
+    private static final int ALPHABET_SIZE = 256;
+    private static final int NO_MATCH = -1;
+
+    private final Automaton forwards;
+    private final Automaton backwards;
+
+    /**
+     * @param wordsToDigits the words to look for and the digit each one stands for. '0' to '9' are always matched.
+     */
+    DigitWordScanner(Map<String, Integer> wordsToDigits) {
+        Map<String, Integer> words = new LinkedHashMap<>();
+        for (char c = '0'; c <= '9'; c++) {
+            words.put(String.valueOf(c), c - '0');
+        }
+        words.putAll(wordsToDigits);
+
+        Map<String, Integer> reversedWords = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : words.entrySet()) {
+            reversedWords.put(new StringBuilder(entry.getKey()).reverse().toString(), entry.getValue());
+        }
+        this.forwards = new Automaton(words);
+        this.backwards = new Automaton(reversedWords);
+    }
+
+    /**
+     * Build the default dictionary, where the word at index i stands for the digit i+1.
+     * @param words words such as 'one', 'two', ...
+     * @return a map from each word to its digit
+     */
+    static Map<String, Integer> wordsToDigits(String[] words) {
+        Map<String, Integer> wordsToDigits = new LinkedHashMap<>();
+        for (int i = 0; i < words.length; i++) {
+            wordsToDigits.put(words[i], i + 1);
+        }
+        return wordsToDigits;
+    }
+
+    /**
+     * Given a line of input as Latin-1 bytes, parse what the calibration value should be.
+     * @param bytes array holding the line
+     * @param start index of the first byte of the line
+     * @param end index just past the last byte of the line
+     * @return calibration value for this line
+     * @throws NumberFormatException If the line holds no digits at all
+     */
+    int getCalibrationValue(byte[] bytes, int start, int end) throws NumberFormatException {
+        int first = forwards.scan(bytes, start, end, 1);
+        if (first == NO_MATCH) {
+            throw new NumberFormatException("No digits found in line: " + new InputArena.Line(bytes, start, end));
+        }
+        return first * 10 + backwards.scan(bytes, end - 1, start - 1, -1);
+    }
+
+    /**
+     * An Aho-Corasick automaton with every transition precomputed, so stepping to the next state is one array read.
+     */
+    private static class Automaton {
+        private final int[] transitions;
+        private final int[] digits;
+        private final int[] lengths;
+        private final int longestWord;
+
+        Automaton(Map<String, Integer> words) {
+            // build the trie. State 0 is the root.
+            int maxStates = 1;
+            int longest = 0;
+            for (String word : words.keySet()) {
+                maxStates += word.length();
+                longest = Math.max(longest, word.length());
+            }
+            int[] trie = new int[maxStates * ALPHABET_SIZE];
+            int[] digits = new int[maxStates];
+            int[] lengths = new int[maxStates];
+            Arrays.fill(digits, NO_MATCH);
+            int states = 1;
+            for (Map.Entry<String, Integer> entry : words.entrySet()) {
+                String word = entry.getKey();
+                int state = 0;
+                for (int i = 0; i < word.length(); i++) {
+                    int index = state * ALPHABET_SIZE + (word.charAt(i) & 0xff);
+                    if (trie[index] == 0) {
+                        trie[index] = states++;
+                    }
+                    state = trie[index];
+                }
+                digits[state] = entry.getValue();
+                lengths[state] = word.length();
+            }
+
+            // breadth first over the trie, filling in failure transitions. A state with no word of its own
+            // reports the longest word that ends at its failure state, which is a suffix of this state.
+            int[] failure = new int[states];
+            int[] queue = new int[states];
+            int head = 0, tail = 0;
+            for (int c = 0; c < ALPHABET_SIZE; c++) {
+                if (trie[c] != 0) {
+                    queue[tail++] = trie[c];
+                }
+            }
+            while (head < tail) {
+                int state = queue[head++];
+                if (digits[state] == NO_MATCH) {
+                    digits[state] = digits[failure[state]];
+                    lengths[state] = lengths[failure[state]];
+                }
+                for (int c = 0; c < ALPHABET_SIZE; c++) {
+                    int index = state * ALPHABET_SIZE + c;
+                    int fallback = trie[failure[state] * ALPHABET_SIZE + c];
+                    if (trie[index] == 0) {
+                        trie[index] = fallback;
+                    } else {
+                        failure[trie[index]] = fallback;
+                        queue[tail++] = trie[index];
+                    }
+                }
+            }
+            this.transitions = Arrays.copyOf(trie, states * ALPHABET_SIZE);
+            this.digits = Arrays.copyOf(digits, states);
+            this.lengths = Arrays.copyOf(lengths, states);
+            this.longestWord = longest;
+        }
+
+        /**
+         * Walk the bytes from 'from' towards 'to', returning the digit whose word starts first in that direction.
+         * @param bytes array holding the line
+         * @param from index of the first byte to read
+         * @param to index one step past the last byte to read
+         * @param step 1 to read forwards, -1 to read backwards
+         * @return the digit found first, or NO_MATCH if there is none
+         */
+        int scan(byte[] bytes, int from, int to, int step) {
+            int state = 0;
+            int bestStart = Integer.MAX_VALUE;
+            int bestDigit = NO_MATCH;
+            // 'read' counts bytes consumed, so a word of length n ending here started at read - n
+            for (int position = from, read = 1; position != to; position += step, read++) {
+                // a word ending from here on cannot start before one that has already been found
+                if (read - longestWord > bestStart) {
+                    break;
+                }
+                state = transitions[state * ALPHABET_SIZE + (bytes[position] & 0xff)];
+                if (digits[state] != NO_MATCH && read - lengths[state] < bestStart) {
+                    bestStart = read - lengths[state];
+                    bestDigit = digits[state];
+                }
+            }
+            return bestDigit;
         }
     }
-}
\ No newline at end of file
+}
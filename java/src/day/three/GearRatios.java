@@ -8,45 +8,152 @@
 package day.three;
 
 import day.AdventOfCodeSolution;
-
-import java.util.ArrayList;
+import day.InputArena;
+import day.LineReader;
+import day.Metrics;
+import day.ModelCache;
+import day.Result;
+
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 
-import static day.AdventOfCodeSolution.debugLog;
+public class GearRatios extends AdventOfCodeSolution<SchematicIndex> {
 
+    /** Both answers for a mapped input, see {@link #streamMapped()} */
+    private StreamingSchematic streamed;
 
-public class GearRatios extends AdventOfCodeSolution {
     public GearRatios(String day) {
         super(day);
     }
 
-    public static void main(String[] args) {
+    /**
+     * Run with '--stream [file]' to stream the schematic from a file, or from standard input if no file is given,
+     * instead of loading the whole input first.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--stream")) {
+            try (InputStream in = args.length > 1 ? new FileInputStream(args[1]) : System.in) {
+                StreamingSchematic schematic = stream(in, (row, index) -> { });
+                System.out.println("Final total ( part 1 ): " + schematic.partSum);
+                System.out.println("Final total ( part 2 ): " + schematic.gearRatioSum);
+            }
+            return;
+        }
         GearRatios solution = new GearRatios("three");
         solution.solve();
     }
 
+    /**
+     * Solve both parts over a schematic as its rows are read, holding no more than three rows at a time.
+     * @param in stream of the schematic, one row per line
+     * @param listener told about the parts and gears in each row once the row below it has been read
+     * @return the streamed schematic, holding the final totals
+     * @throws IOException if the stream cannot be read
+     */
+    public static StreamingSchematic stream(InputStream in, StreamingSchematic.Listener listener) throws IOException {
+        StreamingSchematic schematic = new StreamingSchematic(listener);
+        LineReader.read(in, schematic::accept);
+        schematic.finish();
+        return schematic;
+    }
+
+    /**
+     * Label every number and index the gears once. Indexing is already a single pass over the schematic that finds
+     * everything both parts need, so there is no separate fused pass.
+     */
+    @Override
+    protected SchematicIndex parse() {
+        return new Schematic(arena()).getIndex();
+    }
+
+    /**
+     * A mapped input is streamed a row at a time, see {@link StreamingSchematic}
+     */
     @Override
-    public void solvePartOne() {
-        Schematic schematic = new Schematic(input);
-        List<Part> parts = schematic.getValidParts();
-        for (Part part : parts) {
-            addTotal(Integer.parseInt(part.id));
+    protected boolean canMap() {
+        return true;
+    }
+
+    @Override
+    protected ModelCache.Codec<SchematicIndex> codec() {
+        return SchematicIndex.CODEC;
+    }
+
+    /**
+     * Mapped inputs are streamed a row at a time, so not even the grid is held on the heap
+     */
+    @Override
+    public Result solvePartOne() {
+        if (isMapped()) {
+            return new Result(streamMapped().partSum);
         }
+        SchematicIndex index = model();
+        Metrics.INSTANCE.partsFound.add(index.partCount);
+        return new Result(index.partSum);
+    }
 
-        System.out.println("Final total ( part 1 ): " + getTotal());
+    @Override
+    public Result solvePartTwo() {
+        if (isMapped()) {
+            return new Result(streamMapped().gearRatioSum);
+        }
+        return new Result(model().gearRatioSum(2));
     }
 
+    /**
+     * Streaming finds both answers in one pass, so a mapped input is solved in one go
+     */
     @Override
-    public void solvePartTwo() {
-        Schematic schematic = new Schematic(input);
-        List<Part> parts = schematic.getValidParts();
-        for (GearRatio ratio : schematic.gearRatios) {
-            addTotal(ratio.getRatio());
+    public Result[] solveBoth() {
+        if (isMapped()) {
+            StreamingSchematic schematic = streamMapped();
+            return new Result[]{new Result(schematic.partSum), new Result(schematic.gearRatioSum)};
+        }
+        return super.solveBoth();
+    }
+
+    /**
+     * Rows are streamed through a three row window, so a new row only completes the row above it. The newest row
+     * is counted as if it were the last, and counted properly once the row below it arrives.
+     */
+    @Override
+    public RunningAnswers runningAnswers() {
+        StreamingSchematic schematic = new StreamingSchematic((row, index) -> { });
+        return new RunningAnswers() {
+            @Override
+            public void accept(byte[] bytes, int start, int end) {
+                schematic.accept(bytes, start, end);
+            }
+
+            @Override
+            public Result[] answers() {
+                SchematicIndex lastRow = schematic.provisionalLastRow();
+                return new Result[]{new Result(schematic.partSum + lastRow.partSum),
+                        new Result(schematic.gearRatioSum + lastRow.gearRatioSum(2))};
+            }
+        };
+    }
+
+    /**
+     * Stream the mapped input the first time either part asks for it. Both answers come out of the one pass.
+     * @return the finished stream, holding both answers
+     */
+    private synchronized StreamingSchematic streamMapped() {
+        if (streamed == null) {
+            StreamingSchematic schematic = new StreamingSchematic((row, index) -> { });
+            mapped().forEachLine(schematic::accept);
+            schematic.finish();
+            streamed = schematic;
         }
-        System.out.println("Final total ( part 2 ): " + getTotal());
+        return streamed;
     }
 }
 
@@ -55,271 +162,520 @@ public class GearRatios extends AdventOfCodeSolution {
  */
 class Schematic {
 
-    protected String[] SPECIAL_CHARACTERS = {"&", "*", "#", "=", "+", "$", "%", "/", "@", "^", "-", ")", "("};
-    protected List<String> schematic;
-    private List<Part> ratioParts;
-    protected List<GearRatio> gearRatios;
-    protected List<Part> parts;
+    protected static final String[] SPECIAL_CHARACTERS = {"&", "*", "#", "=", "+", "$", "%", "/", "@", "^", "-", ")", "("};
+    protected SchematicGrid grid;
+
     public Schematic(List<String> schematic) {
-        this.schematic = schematic;
-        this.parts = new ArrayList<>();
-        this.ratioParts = new ArrayList<>();
-        this.gearRatios = new ArrayList<>();
+        this(new SchematicGrid(schematic));
+    }
+
+    public Schematic(InputArena schematic) {
+        this(new SchematicGrid(schematic));
+    }
+
+    public Schematic(SchematicGrid grid) {
+        this.grid = grid;
     }
 
     /**
-     * Iterates over the schematic and extracts parts that have a symbol adjacent to them.
+     * Label every number in the schematic and index which numbers touch each '*'.
+     * Tall schematics are split into bands of rows that are indexed in parallel on the current fork-join pool.
+     * @return the index, covering every row of the schematic
      */
-    public List<Part> getValidParts() {
-        // iterate over the schematic and discover all the parts
-        for (int col = 0; col < this.schematic.size(); col++ ) {
-            String line = this.schematic.get(col);
-            // remove special characters. they don't matter during part discovery
-            for (String c : SPECIAL_CHARACTERS) {
-                line = line.replace(c,".");
-            }
-            String currentPart = "";
-            boolean foundPart = false;
+    public SchematicIndex getIndex() {
+        return getIndex(AdventOfCodeSolution.currentPool(), SchematicBandTask.bandRows(grid));
+    }
 
-            // iterate over the line and discover all the parts
-            for (int index = 0; index <= line.length(); index++) {
-                char currentPosition = this.getSymbolAsChar(index, col);
+    /**
+     * Label every number in the schematic and index which numbers touch each '*', one band of rows at a time.
+     * The result is exactly the same as indexing the whole schematic in one go.
+     * @param pool the pool to index bands on
+     * @param bandRows most rows in a band
+     * @return the index, covering every row of the schematic
+     */
+    public SchematicIndex getIndex(ForkJoinPool pool, int bandRows) {
+        return pool.invoke(new SchematicBandTask(grid, 0, grid.height, bandRows));
+    }
+}
 
-                if (currentPosition != '.' && !isSymbol(currentPosition)) {
-                    foundPart = true;
-                    currentPart += line.charAt(index);
-                }
+/**
+ * The schematic as one byte array, with a border of '.' all the way around it.
+ * The border means every neighbour of a real cell is itself a cell, so lookups never need a bounds check.
+ */
+class SchematicGrid {
 
-                // finish with this part
-                if (foundPart == true && (currentPosition == '.' || isSymbol(currentPosition))) {
-                    foundPart = false;
-                    int partStart = index - currentPart.length();
-                    validatePart(partStart, col, currentPart);
-                    currentPart = "";
-                }
+    static final byte EMPTY = 0, DIGIT = 1, SYMBOL = 2;
+    static final byte BORDER = '.';
+
+    /** What kind of cell each byte is, indexed by the byte's unsigned value */
+    static final byte[] CHARACTER_CLASS = new byte[256];
+
+    static {
+        for (int c = '0'; c <= '9'; c++) {
+            CHARACTER_CLASS[c] = DIGIT;
+        }
+        for (String symbol : Schematic.SPECIAL_CHARACTERS) {
+            CHARACTER_CLASS[symbol.charAt(0)] = SYMBOL;
+        }
+    }
+
+    final int width, height, stride;
+    final byte[] cells;
+
+    SchematicGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stride = width + 2;
+        this.cells = new byte[Math.multiplyExact(stride, height + 2)];
+        Arrays.fill(cells, BORDER);
+    }
+
+    SchematicGrid(List<String> rows) {
+        this(rows.stream().mapToInt(String::length).max().orElse(0), rows.size());
+        for (int y = 0; y < height; y++) {
+            String row = rows.get(y);
+            for (int x = 0; x < row.length(); x++) {
+                cells[index(x, y)] = (byte) row.charAt(x);
             }
         }
-        return this.parts;
     }
 
-    /**
-     * Create a part and check if it is valid. Add it to the list of valid parts if so.
-     * @param x x position of the part
-     * @param y y position of the part
-     * @param id part ID
-     */
-    public void validatePart(int x, int y, String id) {
-        Part newPart = new Part(x, y, id);
-        if (hasAdjacentSymbol(newPart)) {
-            this.parts.add(newPart);
+    SchematicGrid(InputArena input) {
+        this(widestLine(input), input.lineCount());
+        for (int y = 0; y < height; y++) {
+            int start = input.lineStart(y);
+            System.arraycopy(input.bytes(), start, cells, index(0, y), input.lineEnd(y) - start);
         }
     }
 
+    private static int widestLine(InputArena input) {
+        int widest = 0;
+        for (int y = 0; y < input.lineCount(); y++) {
+            widest = Math.max(widest, input.lineEnd(y) - input.lineStart(y));
+        }
+        return widest;
+    }
+
     /**
-     * Does the provided part have an adjacent symbol?
-     * @param p the part to check
-     * @return true of the part has an adjacent symbol. False otherwise.
+     * @return index into cells of the position. x and y may each be one step outside the schematic.
      */
-    public boolean hasAdjacentSymbol(Part p) {
-        int length = p.id.length();
-        for(int i = -1; i <= length; i++) {
-            String firstRow = getSymbol(p.x+i, p.y+1);
-            String secondRow = getSymbol(p.x+i, p.y);
-            String thirdRow = getSymbol(p.x+i, p.y-1);
-            if ( isSymbol(firstRow) | isSymbol(secondRow) | isSymbol(thirdRow) ) {
-                if ((firstRow + secondRow + thirdRow).contains("*")) {
-                    p.hasAdjacentAsterisk = true;
-                    displayPart(p);
-                }
-                List<Part> parts = null;
-                if (firstRow.equals("*")) {
-                    parts = findPartsAroundPoint(p.x+i, p.y+1);
-                }
-                if (secondRow.equals("*")) {
-                    parts = findPartsAroundPoint(p.x+i, p.y);
-                }
-                if (thirdRow.equals("*")) {
-                    parts = findPartsAroundPoint(p.x+i, p.y-1);
-                }
-                if (parts != null && parts.size() == 2)
-                    if (!this.ratioParts.contains(parts.get(0)) && !this.ratioParts.contains(parts.get(1))) {
-                        this.ratioParts.add(parts.get(0));
-                        this.ratioParts.add(parts.get(1));
-                        GearRatio r = new GearRatio(parts.get(0), parts.get(1));
-                        gearRatios.add(r);
-                    }
-                return true;
-            }
-        }
-        return false;
+    int index(int x, int y) {
+        return (y + 1) * stride + x + 1;
     }
 
     /**
-     * Return all parts that can be found around a given position in the schematic
-     * @param xPos x position
-     * @param yPos y position
-     * @return a list of parts
+     * @return the byte at the position, or '.' if it is outside the schematic
      */
-    public List<Part> findPartsAroundPoint(int xPos, int yPos) {
-        ArrayList<Part> parts = new ArrayList<>();
-        for(int y = yPos - 1; y <= yPos+1; y++) {
-            for (int x = xPos-1; x <= xPos+1; x++) {
-                String tempSymbol = getSymbol(x,y);
-                if (isDigit(tempSymbol)) {
-                    String newPartId = "";
-                    int index = x;
-                    // get the right hand side of the part
-                    while(isDigit(getSymbol(index, y))) {
-                        newPartId += getSymbol(index, y);
-                        index++;
-                    }
-                    index = x-1;
-                    while(isDigit(getSymbol(index, y))) {
-                        newPartId = getSymbol(index, y) + newPartId;
-                        index--;
-                    }
-                    parts.add(new Part(index, y, newPartId, true));
-                }
-            }
+    byte at(int x, int y) {
+        if (x < -1 || y < -1 || x > width || y > height) {
+            return BORDER;
         }
-        return parts.stream().distinct().collect(Collectors.toList());
+        return cells[index(x, y)];
     }
+}
+
+/**
+ * Works through a schematic one row at a time, keeping a window of three rows: the row being finished, plus the
+ * rows above and below it. A row's parts and gears can only touch those rows, so each row is complete as soon as
+ * the row after it is read. Memory depends on how wide the schematic is, not how tall.
+ */
+class StreamingSchematic {
 
     /**
-     * Print out a visual representation of a part for debugging
-     * @param p part to print
+     * Receives each row once it is complete
      */
-    public void displayPart(Part p) {
-        if (true) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("\n");
-            for(int y = p.y - 1; y <= p.y+1; y++) {
-                for (int x = p.x-1; x <= p.x+p.id.length(); x++) {
-                    sb.append(getSymbol(x, y));
-                }
-                sb.append("\n");
-            }
-            debugLog(p.toString() + sb.toString());
-        }
+    @FunctionalInterface
+    interface Listener {
+        /**
+         * @param row index of the completed row
+         * @param index the parts and stars in that row. Only valid until this method returns.
+         */
+        void rowComplete(int row, SchematicIndex index);
+    }
+
+    private static final int ABOVE = 0, CURRENT = 1, BELOW = 2;
+
+    long partSum, gearRatioSum;
+    private final Listener listener;
+    private SchematicGrid window = new SchematicGrid(0, 3);
+    private int rowsRead = 0;
+
+    StreamingSchematic(Listener listener) {
+        this.listener = listener;
     }
 
     /**
-     * Return the symbol at the indicated position in the schematic. Out of bounds positions return as '*'
-     * @param x x position
-     * @param y y position
-     * @return the symbol at the indicated position
+     * Read the next row, completing the row before it
+     * @param bytes array holding the row
+     * @param start index of the first byte of the row
+     * @param end index just past the last byte of the row
      */
-    public String getSymbol(int x, int y) {
-        try {
-            return this.schematic.get(y).substring(x, x + 1);
-        } catch (IndexOutOfBoundsException e) {
-            return ".";
+    void accept(byte[] bytes, int start, int end) {
+        if (end - start > window.width) {
+            widen(end - start);
+        }
+        shiftUp();
+        System.arraycopy(bytes, start, window.cells, window.index(0, BELOW), end - start);
+        if (rowsRead++ > 0) {
+            completeCurrentRow(rowsRead - 2);
         }
     }
 
     /**
-     * Return the symbol at the indicated position in the schematic. Out of bounds positions return as '*'
-     * @param x x position
-     * @param y y position
-     * @return the symbol at the indicated position
+     * Complete the last row, once there are no more rows to read
      */
-    public char getSymbolAsChar(int x, int y) {
-        try {
-            return this.schematic.get(y).charAt(x);
-        } catch (IndexOutOfBoundsException e) {
-            return '.';
+    void finish() {
+        if (rowsRead > 0) {
+            shiftUp();
+            completeCurrentRow(rowsRead - 1);
+            rowsRead = 0;
         }
     }
 
     /**
-     * Checks if the provided character is a symbol.
-     * @param symbol the symbol to check
-     * @return true if it is a symbol. False otherwise.
+     * Index the last row read as if no more rows were coming, without completing it, so more rows can still be read
+     * @return the parts and stars in the last row, empty if no rows have been read
      */
-    public boolean isSymbol(String symbol) {
-        if (symbol.length() > 1 || symbol.length() == 0) {
-            System.out.println("Unable to work with string that isn't size one: " + symbol);
+    SchematicIndex provisionalLastRow() {
+        SchematicGrid last = new SchematicGrid(window.width, 3);
+        if (rowsRead > 0) {
+            System.arraycopy(window.cells, window.index(-1, CURRENT), last.cells, last.index(-1, ABOVE), 2 * window.stride);
         }
-        return Arrays.stream(SPECIAL_CHARACTERS).anyMatch(symbol::equals);
+        return SchematicIndex.scan(last, CURRENT, CURRENT + 1);
     }
 
     /**
-     * Is the provided string a symbol? Assumes String of size 1.
-     * @param symbol
-     * @return true if the provided string is a symbol.
+     * @param row index of the row in the middle of the window
      */
-    public boolean isDigit(String symbol) {
-        return symbol.chars().allMatch(Character::isDigit);
+    private void completeCurrentRow(int row) {
+        SchematicIndex index = SchematicIndex.scan(window, CURRENT, CURRENT + 1);
+        partSum += index.partSum;
+        gearRatioSum += index.gearRatioSum(2);
+        listener.rowComplete(row, index);
     }
 
     /**
-     * Is the provided character a symbol? Assumes String of size 1.
-     * @param symbol
-     * @return true if the provided char is a symbol.
+     * Move every row in the window up one, leaving an empty row at the bottom
      */
-    public boolean isSymbol(char symbol) {
-        return isSymbol(String.valueOf(symbol));
+    private void shiftUp() {
+        byte[] cells = window.cells;
+        int above = window.index(-1, ABOVE);
+        System.arraycopy(cells, above + window.stride, cells, above, 2 * window.stride);
+        Arrays.fill(cells, window.index(-1, BELOW), window.index(-1, BELOW) + window.stride, SchematicGrid.BORDER);
+    }
+
+    private void widen(int width) {
+        SchematicGrid wider = new SchematicGrid(width, 3);
+        for (int row = ABOVE; row <= BELOW; row++) {
+            System.arraycopy(window.cells, window.index(0, row), wider.cells, wider.index(0, row), window.width);
+        }
+        window = wider;
     }
 }
 
 /**
- * Simple object representation of a Gear Ratio
+ * Indexes a band of rows in a schematic, splitting it in half and indexing each half in parallel while it is taller
+ * than the band size. Each band reads one row above and below itself, but only indexes numbers and stars in its own
+ * rows, so nothing is counted twice. Bands are appended top to bottom, so the result matches a sequential scan.
  */
-class GearRatio {
-    private Part one;
-    private Part two;
+class SchematicBandTask extends RecursiveTask<SchematicIndex> {
+
+    /** Aim for bands of about this many cells */
+    static final int BAND_CELLS = 1 << 18;
 
-    public GearRatio(Part one, Part two) {
-        this.one = one;
-        this.two = two;
+    private final SchematicGrid grid;
+    private final int fromRow, toRow, bandRows;
+
+    SchematicBandTask(SchematicGrid grid, int fromRow, int toRow, int bandRows) {
+        this.grid = grid;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+        this.bandRows = Math.max(1, bandRows);
     }
 
-    int getRatio(){
-        return one.getId() * two.getId();
+    /**
+     * @return how many rows of the grid make up a band of about {@link #BAND_CELLS} cells
+     */
+    static int bandRows(SchematicGrid grid) {
+        return Math.max(1, BAND_CELLS / grid.stride);
+    }
+
+    @Override
+    protected SchematicIndex compute() {
+        if (toRow - fromRow <= bandRows) {
+            return SchematicIndex.scan(grid, fromRow, toRow);
+        }
+        int middle = fromRow + (toRow - fromRow) / 2;
+        SchematicBandTask top = new SchematicBandTask(grid, fromRow, middle, bandRows);
+        SchematicBandTask bottom = new SchematicBandTask(grid, middle, toRow, bandRows);
+        bottom.fork();
+        SchematicIndex index = top.compute();
+        index.append(bottom.join());
+        return index;
     }
 }
 
 /**
- * Simple object representation of a part in the engine.
- * Just holds the necessary data types.
+ * Every number in (part of) a schematic, labelled once, plus an index from each '*' to the numbers touching it.
+ * Stars are kept in row order, with their neighbours' values in one flat array: the neighbours of star i are
+ * neighbourValues[neighbourStarts[i]] up to, but not including, neighbourValues[neighbourStarts[i + 1]].
  */
-class Part {
-    protected int x,y;
-    protected String id;
-    protected boolean hasAdjacentAsterisk;
-    public Part (int x, int y, String id) {
-        this.x = x;
-        this.y = y;
-        this.id = id;
-        this.hasAdjacentAsterisk = false;
+class SchematicIndex {
+
+    /** The numbers that have a symbol next to them, in row order, and their sum */
+    long partSum;
+    int partCount;
+    long[] partValues;
+
+    int starCount;
+    int[] starPositions;
+    int[] neighbourStarts;
+    long[] neighbourValues;
+
+    /** Saves the parts and the numbers touching each star, which is everything both parts need */
+    static final ModelCache.Codec<SchematicIndex> CODEC = new ModelCache.Codec<>() {
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public void write(SchematicIndex index, DataOutputStream out) throws IOException {
+            out.writeLong(index.partSum);
+            ModelCache.writeLongs(out, index.partValues, index.partCount);
+            ModelCache.writeInts(out, index.starPositions, index.starCount);
+            ModelCache.writeInts(out, index.neighbourStarts, index.starCount + 1);
+            ModelCache.writeLongs(out, index.neighbourValues, index.neighbourStarts[index.starCount]);
+        }
+
+        @Override
+        public SchematicIndex read(ByteBuffer in) {
+            SchematicIndex index = new SchematicIndex();
+            index.partSum = in.getLong();
+            index.partValues = ModelCache.readLongs(in);
+            index.partCount = index.partValues.length;
+            index.starPositions = ModelCache.readInts(in);
+            index.starCount = index.starPositions.length;
+            index.neighbourStarts = ModelCache.readInts(in);
+            index.neighbourValues = ModelCache.readLongs(in);
+            // every star's neighbours must lie inside the values, or a corrupt cache would only fail part way through solving
+            if (index.neighbourStarts.length != index.starCount + 1 || index.neighbourStarts[0] != 0
+                    || index.neighbourStarts[index.starCount] != index.neighbourValues.length) {
+                throw new IllegalArgumentException("Cached star neighbours don't match the stars");
+            }
+            for (int star = 0; star < index.starCount; star++) {
+                if (index.neighbourStarts[star] > index.neighbourStarts[star + 1]) {
+                    throw new IllegalArgumentException("Cached neighbours of star " + star + " end before they start");
+                }
+            }
+            return index;
+        }
+    };
+
+    SchematicIndex() {
+        partValues = new long[16];
+        starPositions = new int[16];
+        neighbourStarts = new int[17];
+        neighbourValues = new long[32];
     }
 
-    public Part (int x, int y, String id, boolean hasAdjacentAsterisk) {
-        this.x = x;
-        this.y = y;
-        this.id = id;
-        this.hasAdjacentAsterisk = hasAdjacentAsterisk;
+    /**
+     * Scan rows fromRow up to, but not including, toRow. Numbers and stars in those rows are indexed,
+     * reading one row above and below them for neighbours. Every cell is looked at a fixed number of times.
+     * @param grid the schematic
+     * @param fromRow first row to index
+     * @param toRow row after the last row to index
+     * @return the index of those rows
+     */
+    static SchematicIndex scan(SchematicGrid grid, int fromRow, int toRow) {
+        SchematicIndex index = new SchematicIndex();
+        byte[] cells = grid.cells;
+        byte[] classes = SchematicGrid.CHARACTER_CLASS;
+        // labels cover the indexed rows plus one row either side. Label 0 means 'not a number'.
+        int labelOffset = grid.index(-1, fromRow - 1);
+        int[] labels = new int[(toRow - fromRow + 2) * grid.stride];
+        long[] values = new long[16];
+        int labelCount = 0;
+
+        for (int y = fromRow - 1; y <= toRow; y++) {
+            int cell = grid.index(0, y);
+            int rowEnd = cell + grid.width;
+            while (cell < rowEnd) {
+                if (classes[cells[cell] & 0xff] != SchematicGrid.DIGIT) {
+                    cell++;
+                    continue;
+                }
+                if (++labelCount == values.length) {
+                    values = Arrays.copyOf(values, values.length * 2);
+                }
+                int numberStart = cell;
+                long value = 0;
+                while (classes[cells[cell] & 0xff] == SchematicGrid.DIGIT) {
+                    value = value * 10 + (cells[cell] - '0');
+                    labels[cell - labelOffset] = labelCount;
+                    cell++;
+                }
+                values[labelCount] = value;
+                if (y >= fromRow && y < toRow && touchesSymbol(grid, numberStart, cell)) {
+                    index.addPart(value);
+                }
+            }
+        }
+
+        for (int y = fromRow; y < toRow; y++) {
+            int cell = grid.index(0, y);
+            int rowEnd = cell + grid.width;
+            for (; cell < rowEnd; cell++) {
+                if (cells[cell] != '*') {
+                    continue;
+                }
+                index.startStar(cell);
+                int label = cell - labelOffset;
+                index.addNeighbours(labels, values, label - grid.stride);
+                index.addNeighbour(labels, values, label - 1);
+                index.addNeighbour(labels, values, label + 1);
+                index.addNeighbours(labels, values, label + grid.stride);
+            }
+        }
+        return index;
     }
 
-    public int getId() {
-        return Integer.parseInt(this.id);
+    /**
+     * Does any cell around the number running from start up to, but not including, end hold a symbol?
+     */
+    private static boolean touchesSymbol(SchematicGrid grid, int start, int end) {
+        byte[] cells = grid.cells;
+        byte[] classes = SchematicGrid.CHARACTER_CLASS;
+        int symbols = classes[cells[start - 1] & 0xff] | classes[cells[end] & 0xff];
+        for (int cell = start - 1; cell <= end; cell++) {
+            symbols |= classes[cells[cell - grid.stride] & 0xff] | classes[cells[cell + grid.stride] & 0xff];
+        }
+        return (symbols & SchematicGrid.SYMBOL) != 0;
     }
 
-    @Override
-    public String toString() {
-        return "Part{ X: " + this.x + ", Y: " + this.y + ", id: " + this.id + ", hasAdjacentAsterisk: " + this.hasAdjacentAsterisk +  "}";
+    /**
+     * Add the parts and stars of the rows after the ones in this index. Their order is kept, so appending the
+     * index of each band in turn gives the same index as scanning all the bands at once.
+     * @param next index of the rows that follow
+     */
+    void append(SchematicIndex next) {
+        if (partCount + next.partCount > partValues.length) {
+            partValues = Arrays.copyOf(partValues, partCount + next.partCount);
+        }
+        System.arraycopy(next.partValues, 0, partValues, partCount, next.partCount);
+        partCount += next.partCount;
+        partSum += next.partSum;
+
+        int neighbours = neighbourStarts[starCount];
+        int nextNeighbours = next.neighbourStarts[next.starCount];
+        if (starCount + next.starCount > starPositions.length) {
+            starPositions = Arrays.copyOf(starPositions, starCount + next.starCount);
+        }
+        if (starCount + next.starCount + 1 > neighbourStarts.length) {
+            neighbourStarts = Arrays.copyOf(neighbourStarts, starCount + next.starCount + 1);
+        }
+        if (neighbours + nextNeighbours > neighbourValues.length) {
+            neighbourValues = Arrays.copyOf(neighbourValues, neighbours + nextNeighbours);
+        }
+        System.arraycopy(next.starPositions, 0, starPositions, starCount, next.starCount);
+        for (int star = 1; star <= next.starCount; star++) {
+            neighbourStarts[starCount + star] = neighbours + next.neighbourStarts[star];
+        }
+        System.arraycopy(next.neighbourValues, 0, neighbourValues, neighbours, nextNeighbours);
+        starCount += next.starCount;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Part part = (Part) o;
-        return x == part.x && y == part.y && hasAdjacentAsterisk == part.hasAdjacentAsterisk && id.equals(part.id);
+    private void addPart(long value) {
+        if (partCount == partValues.length) {
+            partValues = Arrays.copyOf(partValues, partCount * 2);
+        }
+        partValues[partCount++] = value;
+        partSum += value;
     }
 
-    @Override
-    public int hashCode() {
-        return Objects.hash(x, y, id, hasAdjacentAsterisk);
+    private void startStar(int position) {
+        if (starCount == starPositions.length) {
+            starPositions = Arrays.copyOf(starPositions, starPositions.length * 2);
+        }
+        if (starCount + 1 == neighbourStarts.length) {
+            neighbourStarts = Arrays.copyOf(neighbourStarts, neighbourStarts.length * 2);
+        }
+        starPositions[starCount] = position;
+        neighbourStarts[starCount + 1] = neighbourStarts[starCount];
+        starCount++;
+    }
+
+    /**
+     * Add the numbers touching the three cells centred on the label index, which are in a row above or below a star.
+     * A digit in the centre belongs to the only number that can touch the star from that row.
+     */
+    private void addNeighbours(int[] labels, long[] values, int centre) {
+        if (labels[centre] != 0) {
+            addNeighbour(labels, values, centre);
+        } else {
+            addNeighbour(labels, values, centre - 1);
+            addNeighbour(labels, values, centre + 1);
+        }
+    }
+
+    private void addNeighbour(int[] labels, long[] values, int label) {
+        if (labels[label] == 0) {
+            return;
+        }
+        int end = neighbourStarts[starCount];
+        if (end == neighbourValues.length) {
+            neighbourValues = Arrays.copyOf(neighbourValues, neighbourValues.length * 2);
+        }
+        neighbourValues[end] = values[labels[label]];
+        neighbourStarts[starCount] = end + 1;
+    }
+
+    /**
+     * @param star index of the star, in row order
+     * @return how many numbers touch that star
+     */
+    int neighbourCount(int star) {
+        return neighbourStarts[star + 1] - neighbourStarts[star];
+    }
+
+    /**
+     * @param neighbours how many numbers a gear must touch
+     * @return index of each star touching exactly that many numbers, in row order
+     */
+    int[] gears(int neighbours) {
+        int[] gears = new int[starCount];
+        int count = 0;
+        for (int star = 0; star < starCount; star++) {
+            if (neighbourCount(star) == neighbours) {
+                gears[count++] = star;
+            }
+        }
+        return Arrays.copyOf(gears, count);
+    }
+
+    /**
+     * @param star index of the star, in row order
+     * @return the product of every number touching that star
+     */
+    long ratio(int star) {
+        long ratio = 1;
+        for (int i = neighbourStarts[star]; i < neighbourStarts[star + 1]; i++) {
+            ratio *= neighbourValues[i];
+        }
+        return ratio;
+    }
+
+    /**
+     * @param neighbours how many numbers a gear must touch
+     * @return the sum of the ratios of every star touching exactly that many numbers
+     */
+    long gearRatioSum(int neighbours) {
+        long total = 0;
+        for (int star = 0; star < starCount; star++) {
+            if (neighbourCount(star) == neighbours) {
+                total += ratio(star);
+            }
+        }
+        return total;
     }
 }
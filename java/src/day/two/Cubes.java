@@ -8,229 +8,353 @@
 package day.two;
 
 import day.AdventOfCodeSolution;
+import day.ByteCursor;
+import day.InputArena;
+import day.LineSolver;
+import day.ModelCache;
+import day.Result;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
-public class Cubes extends AdventOfCodeSolution {
+public class Cubes extends AdventOfCodeSolution<GameStore> {
 
-    static final int GAME_ID_STRING_INDEX = 5;
+    static final int RED_LIMIT = 12, GREEN_LIMIT = 13, BLUE_LIMIT = 14;
+    static final ThreadLocal<GameParser> PARSERS = ThreadLocal.withInitial(GameParser::new);
 
     public Cubes(String day) {
         super(day);
     }
 
+    /**
+     * For each set of limits, sum the IDs of every game that could have been played with that many cubes in the bag.
+     * The games are only parsed once, however many sets of limits are asked about.
+     * @param redLimits red cubes in the bag, one entry per set of limits
+     * @param greenLimits green cubes in the bag, one entry per set of limits
+     * @param blueLimits blue cubes in the bag, one entry per set of limits
+     * @return the sum of feasible game IDs for each set of limits
+     */
+    public long[] sumFeasibleIds(int[] redLimits, int[] greenLimits, int[] blueLimits) {
+        return model().sumFeasibleIds(redLimits, greenLimits, blueLimits);
+    }
+
     public static void main(String[] args) throws Exception {
         Cubes solution = new Cubes("two");
         solution.solve();
     }
 
+    /**
+     * Boil every game down to its ID and the most cubes of each color seen, which is all either part needs
+     */
     @Override
-    public void solvePartOne() {
-        for (String line : input) {
-            debugLog("Iterating over line " + line);
-            String gameId = getGameId(line);
-            line = line.substring(line.indexOf(gameId)+gameId.length()+2);
-            String[] games = line.split(";");
-
-            Game g = new Game();
-            g.setRules(12,14,13);
-            for(String game : games) {
-                g.parseGame(game);
-            }
-            if(g.followsRules()) {
-                addTotal(Integer.valueOf(gameId));
-            }
-        }
-        System.out.println("Final total ( part 1 ): " + getTotal());
+    protected GameStore parse() {
+        return GameStore.parse(arena());
     }
 
+    /**
+     * Every game is solved on its own line, so the lines can come from a mapped input
+     */
     @Override
-    public void solvePartTwo() {
-        for (String line : input) {
-            debugLog("Iterating over line " + line);
-            String gameId = getGameId(line);
-            line = line.substring(line.indexOf(gameId)+gameId.length()+2);
-            String[] games = line.split(";");
-
-            Game g = new Game();
-            g.setRules(12,14,13);
-            for(String game : games) {
-                g.parseGame(game);
-            }
+    protected boolean canMap() {
+        return true;
+    }
+
+    @Override
+    protected ModelCache.Codec<GameStore> codec() {
+        return GameStore.CODEC;
+    }
 
-            debugLog("Min red:" + g.getMinCubes(Color.RED));
-            debugLog("Min blue:" + g.getMinCubes(Color.BLUE));
-            debugLog("Min green:" + g.getMinCubes(Color.GREEN));
-            addTotal(g.getMinCubes(Color.RED) *  g.getMinCubes(Color.BLUE) * g.getMinCubes(Color.GREEN));
+    /**
+     * Mapped inputs are scored game by game as they are parsed, rather than held in a store
+     */
+    @Override
+    public Result solvePartOne() {
+        if (isMapped()) {
+            return new Result(solveEveryLine((bytes, start, end) -> {
+                GameParser parser = PARSERS.get();
+                return parser.parse(bytes, start, end, RED_LIMIT, GREEN_LIMIT, BLUE_LIMIT) ? parser.id : 0;
+            }));
+        }
+        return new Result(model().sumFeasibleIds(RED_LIMIT, GREEN_LIMIT, BLUE_LIMIT));
+    }
 
+    @Override
+    public Result solvePartTwo() {
+        if (isMapped()) {
+            return new Result(solveEveryLine((bytes, start, end) -> {
+                GameParser parser = PARSERS.get();
+                parser.parse(bytes, start, end, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+                return (long) parser.red * parser.green * parser.blue;
+            }));
         }
-        System.out.println("Final total ( part 2 ): " + getTotal());
+        return new Result(model().sumOfPowers());
     }
 
     /**
-     * Given a Game, retrieve its corresponding ID as a string. Assumes each string is of the form 'Game X:'
-     * @param input the string containing the game
-     * @return The ID for that game as a string
+     * Score each game for both parts as it is parsed, in a single pass over the input and without building a store.
      */
-    public static String getGameId(String input) {
-        StringBuilder gameId = new StringBuilder();
-        int modifier = 0;
+    @Override
+    public Result[] solveBoth() {
+        Result partOne = new Result();
+        LineSolver solver = (bytes, start, end) -> {
+            debugLog(() -> "Iterating over line " + new InputArena.Line(bytes, start, end));
+            GameParser parser = PARSERS.get();
+            parser.parse(bytes, start, end, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            if (parser.red <= RED_LIMIT && parser.green <= GREEN_LIMIT && parser.blue <= BLUE_LIMIT) {
+                partOne.add(parser.id);
+            }
+            return (long) parser.red * parser.blue * parser.green;
+        };
+        Result partTwo = new Result(solveEveryLine(solver));
+        return new Result[]{partOne, partTwo};
+    }
 
-        while(input.charAt(GAME_ID_STRING_INDEX +modifier) !=':') {
-            gameId.append(input.charAt(GAME_ID_STRING_INDEX +modifier));
-            modifier++;
-        }
+    /**
+     * Both parts are sums over games, so each new game just adds its ID if feasible and its power
+     */
+    @Override
+    public RunningAnswers runningAnswers() {
+        return new RunningAnswers() {
+            private final GameParser parser = new GameParser();
+            private long partOne, partTwo;
+
+            @Override
+            public void accept(byte[] bytes, int start, int end) {
+                if (start == end) {
+                    return;
+                }
+                parser.parse(bytes, start, end, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+                if (parser.red <= RED_LIMIT && parser.green <= GREEN_LIMIT && parser.blue <= BLUE_LIMIT) {
+                    partOne += parser.id;
+                }
+                partTwo += (long) parser.red * parser.green * parser.blue;
+            }
 
-        return gameId.toString();
+            @Override
+            public Result[] answers() {
+                return new Result[]{new Result(partOne), new Result(partTwo)};
+            }
+        };
     }
 }
 
 /**
- * Represents a cube's color
+ * Reads a game straight from the bytes of a line, i.e. 'Game 1: 3 blue, 4 red; 1 red, 2 green', keeping only the
+ * game ID and the most cubes of each color seen. Nothing is allocated, so one parser can be reused for every line.
  */
-enum Color {
-    RED("RED"),
-    GREEN("GREEN"),
-    BLUE("BLUE");
+class GameParser {
 
-    private final String color;
-    Color(String color) {
-        this.color = color;
-    }
+    private final ByteCursor cursor = new ByteCursor();
+    int id, red, green, blue;
 
     /**
-     * Get a color from a string representation of a color
-     * @param colorString the string representation
-     * @return a Color corresponding to that string.
+     * Parse a game, stopping early if it breaks a limit.
+     * @param bytes array holding the line
+     * @param start index of the first byte of the line
+     * @param end index just past the last byte of the line
+     * @param redLimit most red cubes allowed
+     * @param greenLimit most green cubes allowed
+     * @param blueLimit most blue cubes allowed
+     * @return true if the whole game was read within the limits. False as soon as a limit is broken.
+     * @throws IllegalArgumentException if the line doesn't start with the game ID, or a color other than red, green or blue is drawn
      */
-    public static Color getColor(String colorString) {
-        colorString = colorString.toUpperCase();
-        if (colorString.equals(Color.BLUE.toString())) {
-            return Color.BLUE;
-        } else if (colorString.equals(Color.GREEN.toString())) {
-            return Color.GREEN;
-        } else if (colorString.equals(Color.RED.toString())) {
-            return Color.RED;
+    boolean parse(byte[] bytes, int start, int end, int redLimit, int greenLimit, int blueLimit) {
+        red = green = blue = 0;
+        cursor.reset(bytes, start, end);
+        id = cursor.expect("Game").skipSpaces().readInt();
+        cursor.expect(':');
+        // ' 3 blue, 4 red; 1 red, 2 green'. Draws and separators don't matter, only each count and its color.
+        while (cursor.skipUntilDigit()) {
+            int count = cursor.readInt();
+            cursor.nextWord();
+            // the first letter picks which color to compare the whole word with
+            byte first = cursor.tokenFirst();
+            if (first == 'r' && cursor.tokenEquals("red")) {
+                red = Math.max(red, count);
+                if (red > redLimit) return false;
+            } else if (first == 'g' && cursor.tokenEquals("green")) {
+                green = Math.max(green, count);
+                if (green > greenLimit) return false;
+            } else if (first == 'b' && cursor.tokenEquals("blue")) {
+                blue = Math.max(blue, count);
+                if (blue > blueLimit) return false;
+            } else {
+                throw new IllegalArgumentException("Unknown cube color '" + new InputArena.Line(bytes, cursor.tokenStart(), cursor.tokenEnd())
+                        + "' in game: " + cursor);
+            }
         }
-        return null;
-    }
-
-    @Override
-    public String toString() {
-        return this.color;
+        return true;
     }
 }
 
 /**
- * Represents a single game, where a number of cubes of different colors are pulled from a bag.
+ * Every game in the input boiled down to its ID and the most cubes of each color seen, one array per column.
  */
-class Game {
+class GameStore {
 
-    public int id, redLimit, blueLimit, greenLimit;
-    public ArrayList<Cube> cubes;
+    /** Above this many (green, blue) cells the batch index would take too much memory, so queries are scanned */
+    static final int MAX_INDEX_CELLS = 1 << 22;
 
-    public final Pattern CUBE_PATTERN = Pattern.compile("(\\d+)\\s(\\w+)");
+    final int size;
+    final int[] ids, maxRed, maxGreen, maxBlue;
+
+    /** Saves every column of the store */
+    static final ModelCache.Codec<GameStore> CODEC = new ModelCache.Codec<>() {
+        @Override
+        public int version() {
+            return 1;
+        }
 
-    public Game(int id, ArrayList<Cube> cubes) {
-        this.id = id;
-        this.cubes = cubes;
+        @Override
+        public void write(GameStore store, DataOutputStream out) throws IOException {
+            ModelCache.writeInts(out, store.ids, store.size);
+            ModelCache.writeInts(out, store.maxRed, store.size);
+            ModelCache.writeInts(out, store.maxGreen, store.size);
+            ModelCache.writeInts(out, store.maxBlue, store.size);
+        }
+
+        @Override
+        public GameStore read(ByteBuffer in) {
+            int[] ids = ModelCache.readInts(in), maxRed = ModelCache.readInts(in), maxGreen = ModelCache.readInts(in), maxBlue = ModelCache.readInts(in);
+            // a corrupt cache could decode into columns of different lengths, which would only fail part way through solving
+            if (maxRed.length != ids.length || maxGreen.length != ids.length || maxBlue.length != ids.length) {
+                throw new IllegalArgumentException("Cached game columns have different lengths");
+            }
+            return new GameStore(ids, maxRed, maxGreen, maxBlue);
+        }
+    };
+
+    GameStore(int size) {
+        this(new int[size], new int[size], new int[size], new int[size]);
     }
 
-    public Game() {
-        this.cubes = new ArrayList<Cube>();
+    GameStore(int[] ids, int[] maxRed, int[] maxGreen, int[] maxBlue) {
+        this.size = ids.length;
+        this.ids = ids;
+        this.maxRed = maxRed;
+        this.maxGreen = maxGreen;
+        this.maxBlue = maxBlue;
     }
 
     /**
-     * Set the rules observed for this game
-     * @param redLimit the max number of red cubes seen
-     * @param blueLimit the max number of blue cubes seen
-     * @param greenLimit the max number of green cubes seen
+     * Parse every line of the input into a store, in parallel
+     * @param input the input, one game per line
+     * @return a store holding every game
      */
-    public void setRules(int redLimit, int blueLimit, int greenLimit) {
-        this.redLimit = redLimit;
-        this.blueLimit = blueLimit;
-        this.greenLimit = greenLimit;
+    static GameStore parse(InputArena input) {
+        GameStore store = new GameStore(input.lineCount());
+        IntStream.range(0, store.size).parallel().forEach(line -> {
+            GameParser parser = Cubes.PARSERS.get();
+            parser.parse(input.bytes(), input.lineStart(line), input.lineEnd(line), Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            store.ids[line] = parser.id;
+            store.maxRed[line] = parser.red;
+            store.maxGreen[line] = parser.green;
+            store.maxBlue[line] = parser.blue;
+        });
+        return store;
     }
 
     /**
-     * Given all the games we have seen, are the rules observed?
-     * @return if the game follows the set rules
-     * @throws Exception if a color was observed that is not expected
+     * @return the sum of the IDs of every game that could be played within the limits
      */
-    public boolean followsRules() {
-        boolean follows = true;
-        for(Cube cube : this.cubes) {
-            int limit = 0;
-            switch (cube.color) {
-                case BLUE:
-                    limit = blueLimit;
-                    break;
-                case GREEN:
-                    limit = greenLimit;
-                    break;
-                case RED:
-                    limit = redLimit;
-                    break;
-                default:
-                    System.out.print("No limit was found this time!");
+    long sumFeasibleIds(int redLimit, int greenLimit, int blueLimit) {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            if (maxRed[i] <= redLimit && maxGreen[i] <= greenLimit && maxBlue[i] <= blueLimit) {
+                total += ids[i];
             }
-            follows = follows && cube.count <= limit;
         }
-        return follows;
+        return total;
     }
 
     /**
-     * For a color, get the maxmimum number of times it occurred in a game
-     * @param color the color we wish to count
-     * @return the minimum number of cubes required to pass a game
+     * @return the sum over every game of the product of the fewest cubes of each color needed to play it
      */
-    int getMinCubes(Color color) {
-        ArrayList<Integer> counts = new ArrayList<Integer>();
-        for (Cube cube : this.cubes) {
-            if (cube.color == color) {
-                counts.add(cube.count);
-            }
+    long sumOfPowers() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += (long) maxRed[i] * maxGreen[i] * maxBlue[i];
         }
-        return Collections.max(counts);
+        return total;
     }
 
     /**
-     * Parse a string representation of a game
-     * @param gameText
+     * Answer many sets of limits at once. Games and limits are both sorted by red, then swept together.
+     * Each game is added to a 2D Fenwick tree over its (green, blue) maxima once its red fits the current limit,
+     * and each set of limits is then a single prefix sum over the tree.
+     * That is O((games + queries) log^2) rather than a scan of every game per set of limits.
+     * @return the sum of feasible game IDs for each set of limits
      */
-    public void parseGame(String gameText) {
-        String[] cubes = gameText.split(",");
-        for(String cubeString : cubes) {
-            this.cubes.add(createCube(cubeString));
+    long[] sumFeasibleIds(int[] redLimits, int[] greenLimits, int[] blueLimits) {
+        int queries = redLimits.length;
+        if (greenLimits.length != queries || blueLimits.length != queries) {
+            throw new IllegalArgumentException("Every set of limits needs a red, green and blue limit");
+        }
+        long[] totals = new long[queries];
+        int[] greens = distinctSorted(maxGreen);
+        int[] blues = distinctSorted(maxBlue);
+        if ((long) (greens.length + 1) * (blues.length + 1) > MAX_INDEX_CELLS) {
+            for (int q = 0; q < queries; q++) {
+                totals[q] = sumFeasibleIds(redLimits[q], greenLimits[q], blueLimits[q]);
+            }
+            return totals;
+        }
+
+        int columns = blues.length + 1;
+        long[] tree = new long[(greens.length + 1) * columns];
+        int[] gameOrder = sortedIndexes(maxRed, size);
+        int[] queryOrder = sortedIndexes(redLimits, queries);
+        int next = 0;
+        for (int q : queryOrder) {
+            while (next < size && maxRed[gameOrder[next]] <= redLimits[q]) {
+                int game = gameOrder[next++];
+                int row = Arrays.binarySearch(greens, maxGreen[game]) + 1;
+                int column = Arrays.binarySearch(blues, maxBlue[game]) + 1;
+                for (int r = row; r <= greens.length; r += r & -r) {
+                    for (int c = column; c <= blues.length; c += c & -c) {
+                        tree[r * columns + c] += ids[game];
+                    }
+                }
+            }
+            long total = 0;
+            for (int r = countAtMost(greens, greenLimits[q]); r > 0; r -= r & -r) {
+                for (int c = countAtMost(blues, blueLimits[q]); c > 0; c -= c & -c) {
+                    total += tree[r * columns + c];
+                }
+            }
+            totals[q] = total;
         }
+        return totals;
+    }
+
+    private static int[] distinctSorted(int[] values) {
+        return Arrays.stream(values).sorted().distinct().toArray();
     }
 
     /**
-     * Initialize a cube given its description (ex '1 green')
-     * @param gameText
-     * @return A Cube that models the string representation of the cube
+     * @return how many of the sorted values are at most the limit
      */
-    public Cube createCube(String gameText) {
-        Matcher m = CUBE_PATTERN.matcher(gameText);
-        m.find();
-        int count = Integer.parseInt(m.group(1));
-        Color color = Color.getColor(m.group(2));
-        return new Cube(count, color);
+    private static int countAtMost(int[] sorted, int limit) {
+        int index = Arrays.binarySearch(sorted, limit);
+        return index >= 0 ? index + 1 : -index - 1;
     }
-}
 
-/**
- * Represents a colored cube in the game described by this problem
- */
-class Cube {
-    public Color color;
-    public int count;
-
-    public Cube(int count, Color color) {
-        this.count = count;
-        this.color = color;
+    /**
+     * @return the indexes 0 to count-1, ordered by the value at each index
+     */
+    private static int[] sortedIndexes(int[] values, int count) {
+        long[] keyed = new long[count];
+        for (int i = 0; i < count; i++) {
+            keyed[i] = ((long) values[i] << 32) | i;
+        }
+        Arrays.sort(keyed);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) keyed[i];
+        }
+        return order;
     }
 }
@@ -0,0 +1,199 @@
+package day;
+
+import day.four.Scratchcards;
+import day.one.Trebuchet;
+import day.three.GearRatios;
+import day.two.Cubes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Watches each day's sample with {@link AdventOfCodeSolution#watch} while it is appended to a file a few bytes at a
+ * time, often stopping part way through a line, and checks the answers after every completed line against solving
+ * everything written so far from scratch.
+ */
+class InputWatcherTest {
+
+    /** Long enough for the watcher to notice a change even if it misses the file system event and has to poll */
+    private static final long ANSWER_TIMEOUT_MILLIS = 10_000;
+
+    private static final String GAMES = String.join("\n",
+            "Game 1: 3 blue, 4 red; 1 red, 2 green, 6 blue; 2 green",
+            "Game 2: 1 blue, 2 green; 3 green, 4 blue, 1 red; 1 green, 1 blue",
+            "Game 3: 8 green, 6 blue, 20 red; 5 blue, 4 red, 13 green; 5 green, 1 red",
+            "Game 4: 1 green, 3 red, 6 blue; 3 green, 6 red; 3 green, 15 blue, 14 red",
+            "Game 5: 6 red, 1 blue, 3 green; 2 blue, 1 red, 2 green");
+
+    static Stream<Arguments> samples() {
+        return Stream.of(
+                Arguments.of("one", (Function<String, AdventOfCodeSolution<?>>) Trebuchet::new, String.join("\n",
+                        "1abc2", "pqr3stu8vwx", "a1b2c3d4e5f", "treb7uchet", "two1nine", "eightwothree7",
+                        "abcone2threexyz", "xtwone3four", "4nineeightseven2", "zoneight234", "7pqrstsixteen")),
+                Arguments.of("two", (Function<String, AdventOfCodeSolution<?>>) Cubes::new, GAMES),
+                Arguments.of("three", (Function<String, AdventOfCodeSolution<?>>) GearRatios::new, String.join("\n",
+                        "467..114..", "...*......", "..35..633.", "......#...", "617*......",
+                        ".....+.58.", "..592.....", "......755.", "...$.*....", ".664.598..")),
+                Arguments.of("four", (Function<String, AdventOfCodeSolution<?>>) Scratchcards::new, String.join("\n",
+                        "Card 1: 41 48 83 86 17 | 83 86  6 31 17  9 48 53",
+                        "Card 2: 13 32 20 16 61 | 61 30 68 82 17 32 24 19",
+                        "Card 3:  1 21 53 59 44 | 69 82 63 72 16 21 14  1",
+                        "Card 4: 41 92 73 84 69 | 59 84 76 51 58  5 54 83",
+                        "Card 5: 87 83 26 28 32 | 88 30 70 12 93 22 82 36",
+                        "Card 6: 31 18 13 56 72 | 74 77 10 23 35 67 36 11")));
+    }
+
+    @ParameterizedTest
+    @MethodSource("samples")
+    void runningAnswersMatchFullSolve(String day, Function<String, AdventOfCodeSolution<?>> solutions, String sample,
+                                      @TempDir Path dir) throws Exception {
+        byte[] input = (sample + "\n").getBytes(StandardCharsets.ISO_8859_1);
+        try (Watching watching = new Watching(solutions.apply(day), dir)) {
+            SplittableRandom random = new SplittableRandom(day.hashCode());
+            int written = 0;
+            while (written < input.length) {
+                int chunk = Math.min(input.length - written, random.nextInt(1, 40));
+                watching.append(Arrays.copyOfRange(input, written, written + chunk));
+                written += chunk;
+                // only an append that completes a line changes the answers
+                if (lastLineBreak(input, written) > lastLineBreak(input, written - chunk)) {
+                    assertArrayEquals(solve(solutions, day, dir, input, lastLineBreak(input, written)), watching.nextAnswers(),
+                            "answers after " + written + " bytes");
+                }
+            }
+
+            // replacing the file with a shorter one starts again from the top
+            int half = lastLineBreak(input, input.length / 2);
+            watching.replace(Arrays.copyOf(input, half));
+            assertArrayEquals(solve(solutions, day, dir, input, half), watching.nextAnswers(), "answers after replacing");
+        }
+    }
+
+    /**
+     * Running answers are made once when watching starts, and once more each time the input is read from the top
+     */
+    @Test
+    void runningAnswersAreMadeOncePerRead(@TempDir Path dir) throws Exception {
+        AtomicInteger made = new AtomicInteger();
+        Cubes cubes = new Cubes("two") {
+            @Override
+            public RunningAnswers runningAnswers() {
+                made.incrementAndGet();
+                return super.runningAnswers();
+            }
+        };
+        byte[] input = (GAMES + "\n").getBytes(StandardCharsets.ISO_8859_1);
+        try (Watching watching = new Watching(cubes, dir)) {
+            watching.append(input);
+            assertArrayEquals(new long[]{8, 2286}, watching.nextAnswers());
+            assertEquals(1, made.get());
+            watching.replace(Arrays.copyOf(input, lastLineBreak(input, input.length / 2)));
+            assertNotNull(watching.nextAnswers());
+            assertEquals(2, made.get());
+        }
+    }
+
+    /**
+     * @return the answers from solving the first bytes of the input in one go, as a new solution would
+     */
+    private static long[] solve(Function<String, AdventOfCodeSolution<?>> solutions, String day, Path dir, byte[] input,
+                                int length) throws IOException {
+        Path prefix = dir.resolve("prefix-" + length + ".txt");
+        Files.write(prefix, Arrays.copyOf(input, length));
+        AdventOfCodeSolution<?> solution = solutions.apply(day);
+        solution.setInputPath(prefix);
+        return new long[]{solution.runPart(1).get(), solution.runPart(2).get()};
+    }
+
+    /**
+     * @return the number of bytes up to and including the last line break in the first count bytes, 0 if none
+     */
+    private static int lastLineBreak(byte[] input, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            if (input[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A solution watching a file of its own on another thread, with every set of answers it reports queued up
+     */
+    private static class Watching implements AutoCloseable {
+        private final Path file;
+        private final BlockingQueue<long[]> answers = new LinkedBlockingQueue<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final Thread thread;
+
+        Watching(AdventOfCodeSolution<?> solution, Path dir) throws IOException {
+            file = dir.resolve("watched.txt");
+            Files.write(file, new byte[0]);
+            solution.setInputPath(file);
+            thread = new Thread(() -> {
+                try {
+                    solution.watch(results -> answers.add(new long[]{results[0].get(), results[1].get()}));
+                } catch (InterruptedException e) {
+                    // stopped by close
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            thread.start();
+        }
+
+        void append(byte[] bytes) throws IOException {
+            Files.write(file, bytes, StandardOpenOption.APPEND);
+        }
+
+        /**
+         * Swap in a new file in one go, so the watcher never sees it empty part way through being rewritten
+         */
+        void replace(byte[] bytes) throws IOException {
+            Path next = file.resolveSibling("next.txt");
+            Files.write(next, bytes);
+            Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * @return the next answers the watcher reports, waiting for them if need be
+         */
+        long[] nextAnswers() throws InterruptedException {
+            long[] next = answers.poll(ANSWER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertNull(failure.get(), "watching failed");
+            assertNotNull(next, "no answers after " + ANSWER_TIMEOUT_MILLIS + "ms");
+            return next;
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            thread.interrupt();
+            thread.join(ANSWER_TIMEOUT_MILLIS);
+            assertNull(failure.get(), "watching failed");
+            assertEquals(0, answers.size(), "answers reported for no new lines");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package day;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineSolverTest {
+
+    /**
+     * A short line followed by one line longer than a chunk still splits at the short line's break, as
+     * {@link MappedLineSolverTask} does
+     */
+    @Test
+    void longLastLineSplitsAtFirstLineBreak() {
+        byte[] bytes = ("7\n" + "1".repeat(LineSolverTask.CHUNK_SIZE * 2) + "\n").getBytes(StandardCharsets.ISO_8859_1);
+        AtomicInteger chunks = new AtomicInteger();
+        LineSolver lengths = new LineSolver() {
+            @Override
+            public long solveLine(byte[] bytes, int start, int end) {
+                return end - start;
+            }
+
+            @Override
+            public long solveLines(byte[] bytes, int from, int to) {
+                chunks.incrementAndGet();
+                return LineSolver.super.solveLines(bytes, from, to);
+            }
+        };
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            long total = pool.invoke(new LineSolverTask(lengths, bytes, 0, bytes.length));
+            assertEquals(1 + LineSolverTask.CHUNK_SIZE * 2, total);
+            assertEquals(2, chunks.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package day;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogLevelTest {
+
+    @Test
+    void levelsAreReadInAnyCase() {
+        assertEquals(AdventOfCodeSolution.LogLevel.DEBUG, AdventOfCodeSolution.parseLogLevel("Debug"));
+        assertEquals(AdventOfCodeSolution.LogLevel.OFF, AdventOfCodeSolution.parseLogLevel(" off"));
+    }
+
+    @Test
+    void unknownLevelTurnsLoggingOff() {
+        assertEquals(AdventOfCodeSolution.LogLevel.OFF, AdventOfCodeSolution.parseLogLevel("info"));
+        assertEquals(AdventOfCodeSolution.LogLevel.OFF, AdventOfCodeSolution.parseLogLevel(""));
+    }
+}
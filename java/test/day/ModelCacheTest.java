@@ -0,0 +1,71 @@
+package day;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ModelCacheTest {
+
+    private static final ModelCache.Codec<long[]> CODEC = new ModelCache.Codec<>() {
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public void write(long[] model, DataOutputStream out) throws IOException {
+            ModelCache.writeLongs(out, model, model.length);
+        }
+
+        @Override
+        public long[] read(ByteBuffer in) {
+            return ModelCache.readLongs(in);
+        }
+    };
+
+    @Test
+    void countsLargerThanTheCacheAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ModelCache.readInts(ByteBuffer.allocate(12).putInt(0, 3)));
+        assertThrows(IllegalArgumentException.class, () -> ModelCache.readInts(ByteBuffer.allocate(12).putInt(0, -1)));
+        assertThrows(IllegalArgumentException.class, () -> ModelCache.readLongs(ByteBuffer.allocate(12).putInt(0, Integer.MAX_VALUE)));
+        assertArrayEquals(new int[]{0, 0}, ModelCache.readInts(ByteBuffer.allocate(12).putInt(0, 2)));
+    }
+
+    @Test
+    void corruptCountFallsBackToParsing(@TempDir Path dir) throws IOException {
+        Path input = dir.resolve("input.txt");
+        Files.writeString(input, "1\n2\n3\n");
+        long[] parsed = {1, 2, 3};
+        assertArrayEquals(parsed, ModelCache.load(input, CODEC, () -> parsed));
+
+        // the count follows the 32 byte header
+        try (RandomAccessFile cache = new RandomAccessFile(ModelCache.cacheFile(input).toFile(), "rw")) {
+            cache.seek(32);
+            cache.writeInt(-5);
+        }
+        assertArrayEquals(parsed, ModelCache.load(input, CODEC, () -> parsed.clone()));
+    }
+
+    @Test
+    void writingLeavesOnlyTheCache(@TempDir Path dir) throws IOException {
+        Path input = dir.resolve("input.txt");
+        Files.writeString(input, "1\n");
+        ModelCache.load(input, CODEC, () -> new long[]{1});
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(Set.of(input, ModelCache.cacheFile(input)), files.collect(Collectors.toSet()));
+        }
+    }
+}
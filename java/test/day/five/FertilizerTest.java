@@ -0,0 +1,59 @@
+package day.five;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FertilizerTest {
+
+    static final String SAMPLE = String.join("\n",
+            "seeds: 79 14 55 13",
+            "",
+            "seed-to-soil map:",
+            "50 98 2",
+            "52 50 48",
+            "",
+            "soil-to-fertilizer map:",
+            "0 15 37",
+            "37 52 2",
+            "39 0 15",
+            "",
+            "fertilizer-to-water map:",
+            "49 53 8",
+            "0 11 42",
+            "42 0 7",
+            "57 7 4",
+            "",
+            "water-to-light map:",
+            "88 18 7",
+            "18 25 70",
+            "",
+            "light-to-temperature map:",
+            "45 77 23",
+            "81 45 19",
+            "68 64 13",
+            "",
+            "temperature-to-humidity map:",
+            "0 69 1",
+            "1 0 69",
+            "",
+            "humidity-to-location map:",
+            "60 56 37",
+            "56 93 4",
+            "");
+
+    @Test
+    void sampleMatchesPuzzle(@TempDir Path dir) throws IOException {
+        Path input = dir.resolve("input.txt");
+        Files.writeString(input, SAMPLE);
+        Fertilizer solution = new Fertilizer("five");
+        solution.setInputPath(input);
+        assertEquals(35, solution.runPart(1).get());
+        assertEquals(46, solution.runPart(2).get());
+    }
+}
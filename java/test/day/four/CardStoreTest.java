@@ -0,0 +1,71 @@
+package day.four;
+
+import day.ModelCache;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CardStoreTest {
+
+    @Test
+    void scoreDoublesForEveryMatch() {
+        assertEquals(0, CardStore.getPartOneScore(0));
+        assertEquals(1, CardStore.getPartOneScore(1));
+        assertEquals(8, CardStore.getPartOneScore(4));
+        assertEquals(1L << 62, CardStore.getPartOneScore(63));
+    }
+
+    /**
+     * The bit sets allow up to 128 matches, but from 64 the score no longer fits in a long
+     */
+    @Test
+    void tooManyMatchesAreRejected() {
+        assertEquals(63, CardStore.matches(parse(card(63))));
+        assertEquals(100, CardStore.matches(parse(card(100))));
+        assertThrows(ArithmeticException.class, () -> CardStore.getPartOneScore(CardStore.matches(parse(card(64)))));
+        assertThrows(ArithmeticException.class, () -> CardStore.getPartOneScore(100));
+    }
+
+    /**
+     * Two cards of 63 matches each score 2^62 apiece, which overflows once added together
+     */
+    @Test
+    void partOneTotalOverflowIsRejected() {
+        CardStore cards = new CardStore(new int[]{1, 2}, new int[]{63, 63});
+        Scratchcards solution = new Scratchcards("four") {
+            @Override
+            protected CardStore parse() {
+                return cards;
+            }
+
+            @Override
+            protected boolean canMap() {
+                return false;
+            }
+
+            @Override
+            protected ModelCache.Codec<CardStore> codec() {
+                return null;
+            }
+        };
+        assertThrows(ArithmeticException.class, solution::solvePartOne);
+    }
+
+    /**
+     * @return a card whose winning numbers and numbers are both 0 up to matches - 1
+     */
+    private static String card(int matches) {
+        String numbers = IntStream.range(0, matches).mapToObj(String::valueOf).collect(Collectors.joining(" "));
+        return "Card 1: " + numbers + " | " + numbers;
+    }
+
+    private static long parse(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+        return CardStore.parseCard(bytes, 0, bytes.length);
+    }
+}
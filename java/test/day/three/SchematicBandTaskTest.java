@@ -0,0 +1,74 @@
+package day.three;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SchematicBandTaskTest {
+
+    private static final String CELLS = "......0123456789**#+$";
+
+    /**
+     * Splitting into bands of every height from one row to the whole schematic gives exactly the index of one scan
+     */
+    @Test
+    void bandsMatchSequentialScan() {
+        SplittableRandom random = new SplittableRandom(5);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 200; round++) {
+                SchematicGrid grid = new SchematicGrid(randomRows(random, 1 + random.nextInt(25), 1 + random.nextInt(30)));
+                SchematicIndex sequential = SchematicIndex.scan(grid, 0, grid.height);
+                Schematic schematic = new Schematic(grid);
+                for (int bandRows = 1; bandRows <= grid.height; bandRows++) {
+                    assertSameIndex(sequential, schematic.getIndex(pool, bandRows), "band of " + bandRows + " rows");
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameIndex(SchematicIndex expected, SchematicIndex actual, String message) {
+        assertEquals(expected.partSum, actual.partSum, message);
+        assertEquals(expected.partCount, actual.partCount, message);
+        assertArrayEquals(Arrays.copyOf(expected.partValues, expected.partCount), Arrays.copyOf(actual.partValues, actual.partCount), message);
+        assertEquals(expected.starCount, actual.starCount, message);
+        assertArrayEquals(Arrays.copyOf(expected.starPositions, expected.starCount), Arrays.copyOf(actual.starPositions, actual.starCount), message);
+        assertArrayEquals(Arrays.copyOf(expected.neighbourStarts, expected.starCount + 1), Arrays.copyOf(actual.neighbourStarts, actual.starCount + 1), message);
+        int neighbours = expected.neighbourStarts[expected.starCount];
+        assertArrayEquals(Arrays.copyOf(expected.neighbourValues, neighbours), Arrays.copyOf(actual.neighbourValues, neighbours), message);
+        for (int gear = 1; gear <= 4; gear++) {
+            assertEquals(expected.gearRatioSum(gear), actual.gearRatioSum(gear), message);
+        }
+    }
+
+    /**
+     * @return rows where digits are common enough that numbers often touch symbols in the rows above and below
+     */
+    private static List<String> randomRows(SplittableRandom random, int width, int height) {
+        List<String> rows = new ArrayList<>();
+        for (int y = 0; y < height; y++) {
+            StringBuilder row = new StringBuilder();
+            int digits = 0;
+            for (int x = 0; x < width; x++) {
+                char cell = CELLS.charAt(random.nextInt(CELLS.length()));
+                // keep numbers short enough to fit in a long
+                digits = Character.isDigit(cell) ? digits + 1 : 0;
+                row.append(digits > 6 ? '.' : cell);
+                if (digits > 6) {
+                    digits = 0;
+                }
+            }
+            rows.add(row.toString());
+        }
+        return rows;
+    }
+}
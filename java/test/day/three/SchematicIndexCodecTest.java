@@ -0,0 +1,51 @@
+package day.three;
+
+import day.ModelCache;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SchematicIndexCodecTest {
+
+    @Test
+    void sampleIndexRoundTrips() throws IOException {
+        SchematicIndex index = new Schematic(List.of("467..114..", "...*......", "..35..633.",
+                "......#...", "617*......", ".....+.58.", "..592.....", "......755.", "...$.*....", ".664.598..")).getIndex();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SchematicIndex.CODEC.write(index, new DataOutputStream(bytes));
+        SchematicIndex read = SchematicIndex.CODEC.read(ByteBuffer.wrap(bytes.toByteArray()));
+        assertEquals(4361, read.partSum);
+        assertEquals(467835, read.gearRatioSum(2));
+    }
+
+    /**
+     * Neighbour starts that point past the neighbour values can only come from a corrupt cache
+     */
+    @Test
+    void neighboursOutsideTheValuesAreRejected() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> read(new int[]{0, 2, 5}, new long[]{1, 2, 3}));
+        assertThrows(IllegalArgumentException.class, () -> read(new int[]{0, 2}, new long[]{1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> read(new int[]{0, 3, 2}, new long[]{1, 2}));
+    }
+
+    /**
+     * @return the index read from a cache of two stars with the given neighbours
+     */
+    private static SchematicIndex read(int[] neighbourStarts, long[] neighbourValues) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0);
+        ModelCache.writeLongs(out, new long[0], 0);
+        ModelCache.writeInts(out, new int[]{4, 9}, 2);
+        ModelCache.writeInts(out, neighbourStarts, neighbourStarts.length);
+        ModelCache.writeLongs(out, neighbourValues, neighbourValues.length);
+        return SchematicIndex.CODEC.read(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+}
@@ -0,0 +1,39 @@
+package day.three;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingSchematicTest {
+
+    private static final List<String> SAMPLE = List.of("467..114..", "...*......", "..35..633.", "......#...",
+            "617*......", ".....+.58.", "..592.....", "......755.", "...$.*....", ".664.598..");
+
+    @Test
+    void everyRowIsCompletedOnceInOrder() {
+        List<Integer> rows = new ArrayList<>();
+        StreamingSchematic schematic = new StreamingSchematic((row, index) -> rows.add(row));
+        for (String line : List.of("1*.", ".2.", "..3")) {
+            byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+            schematic.accept(bytes, 0, bytes.length);
+        }
+        schematic.finish();
+        assertEquals(List.of(0, 1, 2), rows);
+    }
+
+    @Test
+    void sampleMatchesWholeSchematic() {
+        StreamingSchematic schematic = new StreamingSchematic((row, index) -> { });
+        for (String line : SAMPLE) {
+            byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+            schematic.accept(bytes, 0, bytes.length);
+        }
+        schematic.finish();
+        assertEquals(4361, schematic.partSum);
+        assertEquals(467835, schematic.gearRatioSum);
+    }
+}
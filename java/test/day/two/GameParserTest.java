@@ -0,0 +1,40 @@
+package day.two;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameParserTest {
+
+    @Test
+    void keepsTheMostOfEachColor() {
+        GameParser parser = new GameParser();
+        assertTrue(parse(parser, "Game 3: 8 green, 6 blue, 20 red; 5 blue, 4 red, 13 green; 5 green, 1 red", 100));
+        assertEquals(3, parser.id);
+        assertEquals(20, parser.red);
+        assertEquals(13, parser.green);
+        assertEquals(6, parser.blue);
+        assertFalse(parse(parser, "Game 3: 8 green, 6 blue, 20 red", 12));
+    }
+
+    /**
+     * Colors are matched on the whole word, so words that only start like a color are rejected
+     */
+    @Test
+    void unknownColorsAreRejected() {
+        GameParser parser = new GameParser();
+        for (String draw : new String[]{"3 rose", "3 bogus", "3 greenish", "3 re", "3 Red", "3 , 2 red"}) {
+            assertThrows(IllegalArgumentException.class, () -> parse(parser, "Game 1: 1 red; " + draw, 100), draw);
+        }
+    }
+
+    private static boolean parse(GameParser parser, String line, int limit) {
+        byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+        return parser.parse(bytes, 0, bytes.length, limit, limit, limit);
+    }
+}
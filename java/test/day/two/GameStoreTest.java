@@ -0,0 +1,78 @@
+package day.two;
+
+import day.ModelCache;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameStoreTest {
+
+    /**
+     * The batch index gives every set of limits the same total as scanning the store for that set alone
+     */
+    @Test
+    void batchMatchesScanPerLimits() {
+        SplittableRandom random = new SplittableRandom(8);
+        for (int round = 0; round < 200; round++) {
+            assertBatchMatchesScan(random, randomStore(random, random.nextInt(300), 1 + random.nextInt(30)), 1 + random.nextInt(40));
+        }
+    }
+
+    /**
+     * Too many distinct (green, blue) maxima for the index, so the batch falls back to a scan per set of limits
+     */
+    @Test
+    void batchMatchesScanWithoutIndex() {
+        SplittableRandom random = new SplittableRandom(9);
+        GameStore store = randomStore(random, 5000, 100_000);
+        assertBatchMatchesScan(random, store, 100_000);
+    }
+
+    /**
+     * Columns of different lengths can only come from a corrupt cache, so they are rejected before anything is solved
+     */
+    @Test
+    void cachedColumnsOfDifferentLengthsAreRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        ModelCache.writeInts(out, new int[]{1, 2, 3}, 3);
+        ModelCache.writeInts(out, new int[]{4, 5, 6}, 3);
+        ModelCache.writeInts(out, new int[]{7, 8}, 2);
+        ModelCache.writeInts(out, new int[]{9, 10, 11}, 3);
+        assertThrows(IllegalArgumentException.class, () -> GameStore.CODEC.read(ByteBuffer.wrap(bytes.toByteArray())));
+    }
+
+    private static void assertBatchMatchesScan(SplittableRandom random, GameStore store, int maxLimit) {
+        int queries = random.nextInt(500);
+        int[] red = new int[queries], green = new int[queries], blue = new int[queries];
+        long[] expected = new long[queries];
+        for (int q = 0; q < queries; q++) {
+            red[q] = random.nextInt(-1, maxLimit);
+            green[q] = random.nextInt(-1, maxLimit);
+            blue[q] = random.nextInt(-1, maxLimit);
+            expected[q] = store.sumFeasibleIds(red[q], green[q], blue[q]);
+        }
+        assertArrayEquals(expected, store.sumFeasibleIds(red, green, blue));
+    }
+
+    /**
+     * @return games with ids from 1 up and cube counts below the bound, so many games share the same maxima
+     */
+    private static GameStore randomStore(SplittableRandom random, int games, int bound) {
+        GameStore store = new GameStore(games);
+        for (int i = 0; i < games; i++) {
+            store.ids[i] = i + 1;
+            store.maxRed[i] = random.nextInt(bound);
+            store.maxGreen[i] = random.nextInt(bound);
+            store.maxBlue[i] = random.nextInt(bound);
+        }
+        return store;
+    }
+}